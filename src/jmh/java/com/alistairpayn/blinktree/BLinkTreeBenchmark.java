@@ -0,0 +1,161 @@
+package com.alistairpayn.blinktree;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BLinkTreeBenchmark {
+  static final int SCAN_LENGTH = 100;
+  static final int BATCH = 256;
+
+  @Param({"16", "64", "256"})
+  public int nodeSize;
+
+  BLinkTree<Integer, Integer> tree;
+  List<Mapping<Integer>> sorted;
+  List<Mapping<Integer>> unsorted;
+  long scanWidth;
+
+  @Setup(Level.Trial)
+  public void setup(final Workload workload) {
+    tree = build(workload);
+    sorted = Arrays.stream(workload.keys).sorted().map(key -> new Mapping<>(key, key)).toList();
+    unsorted = Arrays.stream(workload.keys).map(key -> new Mapping<>(key, key)).toList();
+    // the key width that covers SCAN_LENGTH entries on average whatever the distribution's key density
+    final long span = (long) sorted.get(sorted.size() - 1).key - sorted.get(0).key;
+    scanWidth = Math.max(1, span * SCAN_LENGTH / sorted.size());
+  }
+
+  BLinkTree<Integer, Integer> build(final Workload workload) {
+    final var tree = new BLinkTree<Integer, Integer>(nodeSize);
+    for (var key : workload.keys) {
+      tree.put(key, key);
+    }
+    return tree;
+  }
+
+  @Benchmark
+  public Integer get(final Workload workload) {
+    return tree.get(workload.nextProbe());
+  }
+
+  Integer[] nextBatch(final Workload workload) {
+    final var keys = new Integer[BATCH];
+    for (int i = 0; i < BATCH; ++i) {
+      keys[i] = workload.nextProbe();
+    }
+    return keys;
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(BATCH)
+  public void getBatch(final Workload workload, final Blackhole blackhole) {
+    for (var key : nextBatch(workload)) {
+      blackhole.consume(tree.get(key));
+    }
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(BATCH)
+  public Integer[] getAll(final Workload workload) {
+    final var out = new Integer[BATCH];
+    tree.getAll(nextBatch(workload), out);
+    return out;
+  }
+
+  Integer scanEnd(final int from) {
+    return (int) Math.min(Integer.MAX_VALUE, from + scanWidth);
+  }
+
+  @Benchmark
+  public void scan(final Workload workload, final Blackhole blackhole) {
+    final var from = workload.nextProbe();
+    final var iterator = tree.scan(from, true, scanEnd(from), false);
+    while (iterator.hasNext()) {
+      blackhole.consume(iterator.next());
+    }
+  }
+
+  @Benchmark
+  public void scanConsumer(final Workload workload, final Blackhole blackhole) {
+    final var from = workload.nextProbe();
+    tree.scan(from, true, scanEnd(from), false, (key, value) -> blackhole.consume(value));
+  }
+
+  @Benchmark
+  public long streamSum() {
+    return tree.stream().mapToLong(mapping -> (Integer) mapping.value).sum();
+  }
+
+  @Benchmark
+  public long parallelStreamSum() {
+    return tree.stream().parallel().mapToLong(mapping -> (Integer) mapping.value).sum();
+  }
+
+  @Benchmark
+  public Object mixed(final Workload workload, final Workload.Mix mix) {
+    if (mix.nextIsRead()) {
+      return tree.get(workload.nextProbe());
+    }
+    final var write = workload.nextWrite();
+    final var key = workload.absentKey(write);
+    if (Workload.isPut(write)) {
+      tree.put(key, key);
+      return key;
+    }
+    return tree.remove(key);
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.SingleShotTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  @Warmup(iterations = 5)
+  @Measurement(iterations = 10)
+  public BLinkTree<Integer, Integer> load(final Workload workload) {
+    return build(workload);
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.SingleShotTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  @Warmup(iterations = 5)
+  @Measurement(iterations = 10)
+  public BLinkTree<Integer, Integer> bulkLoad() {
+    final var tree = new BLinkTree<Integer, Integer>(nodeSize);
+    tree.bulkLoad(sorted.iterator(), 1.0);
+    return tree;
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.SingleShotTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  @Warmup(iterations = 5)
+  @Measurement(iterations = 10)
+  public BLinkTree<Integer, Integer> buildParallel() {
+    final var tree = new BLinkTree<Integer, Integer>(nodeSize);
+    tree.buildParallel(unsorted, ForkJoinPool.commonPool());
+    return tree;
+  }
+}
@@ -0,0 +1,71 @@
+package com.alistairpayn.blinktree;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BaselineMapBenchmark {
+  @Param({"TreeMap", "ConcurrentSkipListMap"})
+  public String implementation;
+
+  NavigableMap<Integer, Integer> map;
+
+  @Setup(Level.Trial)
+  public void setup(final Workload workload) {
+    map = build(workload);
+  }
+
+  NavigableMap<Integer, Integer> build(final Workload workload) {
+    final NavigableMap<Integer, Integer> map = implementation.equals("TreeMap")
+        ? new TreeMap<>()
+        : new ConcurrentSkipListMap<>();
+    for (var key : workload.keys) {
+      map.put(key, key);
+    }
+    return map;
+  }
+
+  @Benchmark
+  public Integer get(final Workload workload) {
+    return map.get(workload.nextProbe());
+  }
+
+  @Benchmark
+  public Integer mixed(final Workload workload, final Workload.Mix mix) {
+    if (mix.nextIsRead()) {
+      return map.get(workload.nextProbe());
+    }
+    final var write = workload.nextWrite();
+    final var key = workload.absentKey(write);
+    return Workload.isPut(write) ? map.put(key, key) : map.remove(key);
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.SingleShotTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  @Warmup(iterations = 5)
+  @Measurement(iterations = 10)
+  public NavigableMap<Integer, Integer> load(final Workload workload) {
+    return build(workload);
+  }
+}
@@ -0,0 +1,93 @@
+package com.alistairpayn.blinktree;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BytesBLinkTreeBenchmark {
+  static final byte[] TENANT = "tenant-0042/entity/".getBytes();
+
+  @Param({"16", "64", "256"})
+  public int nodeSize;
+
+  BytesBLinkTree<Integer> tree;
+  byte[][] probes;
+  byte[][] absent;
+  int index = 0;
+
+  // composite keys whose first bytes are all the same tenant, so the normalized prefixes tie and comparisons go long
+  static byte[] key(final int id) {
+    return ByteBuffer.allocate(TENANT.length + Integer.BYTES).put(TENANT).putInt(id ^ Integer.MIN_VALUE).array();
+  }
+
+  @Setup(Level.Trial)
+  public void setup(final Workload workload) {
+    tree = build(workload);
+    probes = new byte[Workload.PROBES][];
+    for (int i = 0; i < Workload.PROBES; ++i) {
+      probes[i] = key(workload.probes[i]);
+    }
+    absent = new byte[Workload.WRITES][];
+    for (int i = 0; i < Workload.WRITES; ++i) {
+      absent[i] = key(workload.absent[i]);
+    }
+  }
+
+  BytesBLinkTree<Integer> build(final Workload workload) {
+    final var tree = new BytesBLinkTree<Integer>(nodeSize);
+    for (var key : workload.keys) {
+      tree.put(key(key), key);
+    }
+    return tree;
+  }
+
+  byte[] nextProbe() {
+    return probes[index++ & (Workload.PROBES - 1)];
+  }
+
+  @Benchmark
+  public Integer get() {
+    return tree.get(nextProbe());
+  }
+
+  @Benchmark
+  public Object mixed(final Workload workload, final Workload.Mix mix) {
+    if (mix.nextIsRead()) {
+      return tree.get(nextProbe());
+    }
+    final var write = workload.nextWrite();
+    final var key = absent[write & (Workload.WRITES - 1)];
+    if (Workload.isPut(write)) {
+      tree.put(key, write);
+      return key;
+    }
+    return tree.remove(key);
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.SingleShotTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  @Warmup(iterations = 5)
+  @Measurement(iterations = 10)
+  public BytesBLinkTree<Integer> load(final Workload workload) {
+    return build(workload);
+  }
+}
@@ -0,0 +1,110 @@
+package com.alistairpayn.blinktree;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Random;
+
+public enum KeyDistribution {
+  SEQUENTIAL {
+    @Override
+    Integer[] keys(final int size, final Random random) {
+      final var keys = new Integer[size];
+      for (int i = 0; i < size; ++i) {
+        keys[i] = i;
+      }
+      return keys;
+    }
+
+    @Override
+    Integer[] probes(final Integer[] keys, final int count, final Random random) {
+      final var probes = new Integer[count];
+      for (int i = 0; i < count; ++i) {
+        probes[i] = keys[i % keys.length];
+      }
+      return probes;
+    }
+
+    @Override
+    Integer[] absent(final Integer[] keys, final int count, final Random random) {
+      final var absent = new Integer[count];
+      for (int i = 0; i < count; ++i) {
+        absent[i] = keys.length + i;
+      }
+      return absent;
+    }
+  },
+  UNIFORM {
+    @Override
+    Integer[] probes(final Integer[] keys, final int count, final Random random) {
+      final var probes = new Integer[count];
+      for (int i = 0; i < count; ++i) {
+        probes[i] = keys[random.nextInt(keys.length)];
+      }
+      return probes;
+    }
+  },
+  ZIPFIAN {
+    @Override
+    Integer[] probes(final Integer[] keys, final int count, final Random random) {
+      // ranks are mapped through the shuffled load order so the hot keys are spread across the leaves
+      final var zipf = new Zipf(keys.length, 0.99, random);
+      final var probes = new Integer[count];
+      for (int i = 0; i < count; ++i) {
+        probes[i] = keys[zipf.next()];
+      }
+      return probes;
+    }
+  };
+
+  // the keys loaded into the map in insertion order, distinct random keys unless overridden
+  Integer[] keys(final int size, final Random random) {
+    return random.ints().distinct().limit(size).boxed().toArray(Integer[]::new);
+  }
+
+  abstract Integer[] probes(final Integer[] keys, final int count, final Random random);
+
+  // keys not in the loaded map, which the mixed benchmarks insert and remove again
+  Integer[] absent(final Integer[] keys, final int count, final Random random) {
+    final var loaded = new HashSet<>(Arrays.asList(keys));
+    return random.ints().filter(key -> !loaded.contains(key)).distinct().limit(count).boxed().toArray(Integer[]::new);
+  }
+
+  // Gray et al. "Quickly Generating Billion-Record Synthetic Databases", as used by YCSB
+  static final class Zipf {
+    final int items;
+    final double theta;
+    final double zetan;
+    final double alpha;
+    final double eta;
+    final Random random;
+
+    Zipf(final int items, final double theta, final Random random) {
+      this.items = items;
+      this.theta = theta;
+      this.random = random;
+      this.zetan = zeta(items, theta);
+      this.alpha = 1.0 / (1.0 - theta);
+      this.eta = (1 - Math.pow(2.0 / items, 1 - theta)) / (1 - zeta(2, theta) / zetan);
+    }
+
+    static double zeta(final int n, final double theta) {
+      double sum = 0;
+      for (int i = 1; i <= n; ++i) {
+        sum += 1 / Math.pow(i, theta);
+      }
+      return sum;
+    }
+
+    int next() {
+      final var u = random.nextDouble();
+      final var uz = u * zetan;
+      if (uz < 1.0) {
+        return 0;
+      }
+      if (uz < 1.0 + Math.pow(0.5, theta)) {
+        return 1;
+      }
+      return Math.min(items - 1, (int) (items * Math.pow(eta * u - eta + 1, alpha)));
+    }
+  }
+}
@@ -0,0 +1,87 @@
+package com.alistairpayn.blinktree;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class LongBLinkTreeBenchmark {
+  @Param({"16", "64", "256"})
+  public int nodeSize;
+
+  LongBLinkTree<Integer> tree;
+  long[] probes;
+  int index = 0;
+
+  @Setup(Level.Trial)
+  public void setup(final Workload workload) {
+    tree = build(workload);
+    probes = new long[Workload.PROBES];
+    for (int i = 0; i < Workload.PROBES; ++i) {
+      probes[i] = workload.probes[i];
+    }
+  }
+
+  LongBLinkTree<Integer> build(final Workload workload) {
+    final var tree = new LongBLinkTree<Integer>(nodeSize);
+    for (var key : workload.keys) {
+      tree.put(key, key);
+    }
+    return tree;
+  }
+
+  long nextProbe() {
+    return probes[index++ & (Workload.PROBES - 1)];
+  }
+
+  @Benchmark
+  public Integer get() {
+    return tree.get(nextProbe());
+  }
+
+  // the same lookups with the Vector API turned off, searching nodes with a binary search
+  @Benchmark
+  @Fork(value = 1, jvmArgsAppend = "-Dblinktree.scalarSearch=true")
+  public Integer getScalar() {
+    return tree.get(nextProbe());
+  }
+
+  @Benchmark
+  public Object mixed(final Workload workload, final Workload.Mix mix) {
+    if (mix.nextIsRead()) {
+      return tree.get(nextProbe());
+    }
+    final var write = workload.nextWrite();
+    final var key = workload.absentKey(write);
+    if (Workload.isPut(write)) {
+      tree.put(key, key);
+      return key;
+    }
+    return tree.remove(key);
+  }
+
+  @Benchmark
+  @BenchmarkMode(Mode.SingleShotTime)
+  @OutputTimeUnit(TimeUnit.MILLISECONDS)
+  @Warmup(iterations = 5)
+  @Measurement(iterations = 10)
+  public LongBLinkTree<Integer> load(final Workload workload) {
+    return build(workload);
+  }
+}
@@ -0,0 +1,77 @@
+package com.alistairpayn.blinktree;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+
+@State(Scope.Benchmark)
+public class Workload {
+  static final int PROBES = 1 << 20;
+  static final long SEED = 256;
+  static final int WRITES = 1 << 12;
+
+  @Param({"10000", "1000000"})
+  public int treeSize;
+
+  @Param({"SEQUENTIAL", "UNIFORM", "ZIPFIAN"})
+  public KeyDistribution distribution;
+
+  Integer[] keys;
+  Integer[] probes;
+  Integer[] absent;
+  int index = 0;
+  int write = 0;
+
+  @Setup(Level.Trial)
+  public void setup() {
+    final var random = new Random(SEED);
+    keys = distribution.keys(treeSize, random);
+    probes = distribution.probes(keys, PROBES, random);
+    absent = distribution.absent(keys, WRITES, random);
+  }
+
+  Integer nextProbe() {
+    return probes[index++ & (PROBES - 1)];
+  }
+
+  // writes cycle through putting every absent key and then removing them all, so each one changes the tree's structure
+  int nextWrite() {
+    return write++ & (2 * WRITES - 1);
+  }
+
+  static boolean isPut(final int write) {
+    return write < WRITES;
+  }
+
+  Integer absentKey(final int write) {
+    return absent[write & (WRITES - 1)];
+  }
+
+  @State(Scope.Benchmark)
+  public static class Mix {
+    static final int OPERATIONS = 1 << 10;
+
+    @Param({"50", "95"})
+    public int readPercent;
+
+    boolean[] reads;
+    int index = 0;
+
+    @Setup(Level.Trial)
+    public void setup() {
+      final var random = new Random(SEED);
+      reads = new boolean[OPERATIONS];
+      for (int i = 0; i < OPERATIONS; ++i) {
+        reads[i] = random.nextInt(100) < readPercent;
+      }
+    }
+
+    boolean nextIsRead() {
+      return reads[index++ & (OPERATIONS - 1)];
+    }
+  }
+}
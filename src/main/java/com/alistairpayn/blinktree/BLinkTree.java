@@ -0,0 +1,669 @@
+package com.alistairpayn.blinktree;
+
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.function.BiConsumer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+import java.util.function.IntConsumer;
+import java.util.function.ToLongFunction;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+public class BLinkTree<K extends Comparable<K>, V> {
+  final int maxSize; // of the leaves
+  final int minSize;
+  final int internalMaxSize;
+  final int internalMinSize;
+  final Comparator<? super K> comparator;
+  int size = 0;
+  int version = 0;
+  final BLinkTreeMetrics metrics = new BLinkTreeMetrics();
+
+  BLinkTreeNode<K> root;
+
+  public BLinkTree(final int maxSize) {
+    this(maxSize / 2, maxSize);
+  }
+
+  public BLinkTree(final int minSize, final int maxSize) {
+    this(minSize, maxSize, null);
+  }
+
+  public BLinkTree(final int maxSize, final Comparator<? super K> comparator) {
+    this(maxSize / 2, maxSize, comparator);
+  }
+
+  public BLinkTree(final int minSize, final int maxSize, final Comparator<? super K> comparator) {
+    this(new NodeSizes(minSize, maxSize, Math.max(2, minSize), maxSize), comparator);
+  }
+
+  public BLinkTree(final NodeSizes sizes) {
+    this(sizes, null);
+  }
+
+  public BLinkTree(final NodeSizes sizes, final Comparator<? super K> comparator) {
+    this.minSize = sizes.leafMinSize;
+    this.maxSize = sizes.leafMaxSize;
+    this.internalMinSize = sizes.internalMinSize;
+    this.internalMaxSize = sizes.internalMaxSize;
+    this.comparator = comparator;
+    this.root = newNode(false);
+  }
+
+  BLinkTreeNode<K> newNode(final boolean isInternal) {
+    return isInternal
+        ? new BLinkTreeNode<K>(internalMaxSize, true, comparator, version, metrics, internalMinSize)
+        : new BLinkTreeNode<K>(maxSize, false, comparator, version, metrics, minSize);
+  }
+
+  public boolean isEmpty() {
+    return root == null;
+  }
+
+  @SuppressWarnings("unchecked")
+  public V get(final K key) {
+    return (V) root.get(key);
+  }
+
+  // looks the keys up together, writing the value of keys[i] or null to out[i], fastest when the keys are sorted
+  public void getAll(final K[] keys, final V[] out) {
+    if (out.length < keys.length) {
+      throw new RuntimeException("Output holds " + out.length + " values but " + keys.length + " keys were given");
+    }
+    root.getAll(keys, out);
+  }
+
+  public void put(final K key, final V value) {
+    if (root.version != version) { // the root is shared with a snapshot, writes copy the nodes they change
+      root = new BLinkTreeNode<K>(root, version);
+    }
+    if (root.isInternal ? root.putInternal(key, value, version) : root.putLeaf(key, value)) {
+      ++size;
+    }
+
+    if (root.isOvercapacity()) {
+      growRoot();
+    }
+  }
+
+  // inserts a batch of keys in ascending order, reaching each leaf once per run of keys bound for it
+  public void putAll(final K[] keys, final V[] values) {
+    if (keys.length != values.length) {
+      throw new RuntimeException("Batch has " + keys.length + " keys but " + values.length + " values");
+    }
+    for (int i = 1; i < keys.length; ++i) {
+      if (root.compare(keys[i - 1], keys[i]) >= 0) {
+        throw new RuntimeException("Batch keys must be unique and in ascending order, found " + keys[i]);
+      }
+    }
+
+    final var inserted = new int[1];
+    var position = 0;
+    while (position < keys.length) { // each pass stops when the root fills, growing the tree before the next
+      if (root.version != version) {
+        root = new BLinkTreeNode<K>(root, version);
+      }
+      position = root.isInternal
+          ? root.putAll(keys, values, position, keys.length, version, inserted)
+          : root.putLeafAll(keys, values, position, keys.length, inserted);
+      if (root.isOvercapacity()) {
+        growRoot();
+      }
+    }
+    size += inserted[0];
+  }
+
+  void growRoot() { // when the root is full grow the tree by creating a new root
+    final var promoted = root.split();
+    final var node = newNode(true);
+    node.setKeyAt(0, promoted.key);
+    node.setValueAt(0, root);
+    node.setValueAt(1, promoted.value);
+    node.size = 2;
+    root = node;
+    metrics.growRoot(node);
+  }
+
+  public boolean remove(final K key) {
+    if (root.version != version) {
+      root = new BLinkTreeNode<K>(root, version);
+    }
+    if (root.isInternal ? root.removeInternal(key, version) : root.removeLeaf(key)) {
+      --size;
+      if (root.size == 1 && root.isInternal) {
+        root = root.getChildAt(0);
+        metrics.shrinkRoot(root);
+      }
+      return true;
+    }
+
+    return false;
+  }
+
+  public BLinkTreeMetrics getMetrics() {
+    return metrics;
+  }
+
+  // walks the tree on the calling thread, which as the writer's thread is the only one that could change it
+  public BLinkTreeStats stats() {
+    return stats(BLinkTreeStats::estimateKeyBytes);
+  }
+
+  public BLinkTreeStats stats(final ToLongFunction<? super K> keyBytes) {
+    return BLinkTreeStats.of(root, size, keyBytes);
+  }
+
+  // walks a snapshot on the executor, so the writer only pays for the snapshot and the nodes it next copies
+  public CompletableFuture<BLinkTreeStats> statsAsync(final Executor executor) {
+    return snapshot().statsAsync(executor);
+  }
+
+  // a read-only view of the tree as it is now in constant time, writers then copy nodes of older versions before changing them
+  public BLinkTreeSnapshot<K, V> snapshot() {
+    final var snapshot = new BLinkTreeSnapshot<K, V>(root, size);
+    ++version;
+    return snapshot;
+  }
+
+  // builds the tree bottom up from mappings in ascending key order, filling each leaf to the fill factor
+  @SuppressWarnings("unchecked")
+  public void bulkLoad(final Iterator<Mapping<K>> sorted, final double fillFactor) {
+    if (size != 0) {
+      throw new RuntimeException("BLinkTree must be empty to bulk load");
+    }
+    if (!(fillFactor > 0 && fillFactor <= 1)) {
+      throw new RuntimeException("Bulk load fill factor must be in (0, 1]");
+    }
+
+    final var capacity = getBulkLoadCapacity(fillFactor, maxSize);
+    final var leaves = new ArrayList<BLinkTreeNode<K>>();
+    var leaf = newNode(false);
+    leaves.add(leaf);
+    var count = 0;
+    while (sorted.hasNext()) {
+      final var mapping = sorted.next();
+      if (leaf.size > 0 && leaf.compare(leaf.getKeyAt(leaf.size - 1), mapping.key) >= 0) {
+        throw new RuntimeException("Bulk load keys must be unique and in ascending order, found " + mapping.key);
+      }
+      if (leaf.size == capacity) {
+        leaf = linkRight(leaf);
+        leaves.add(leaf);
+      }
+      leaf.keys[leaf.size] = mapping.key;
+      leaf.values[leaf.size] = mapping.value;
+      ++leaf.size;
+      ++count;
+    }
+
+    balanceLastLeaves(leaves);
+    root = buildInternalLevels(leaves.toArray(BLinkTreeNode[]::new), fillFactor, null);
+    size = count;
+  }
+
+  public void buildParallel(final Collection<Mapping<K>> mappings, final ForkJoinPool pool) {
+    buildParallel(mappings, 1.0, pool);
+  }
+
+  // builds the tree bottom up from mappings in any order on the pool, keeping the last of any with the same key
+  @SuppressWarnings("unchecked")
+  public void buildParallel(final Collection<Mapping<K>> mappings, final double fillFactor, final ForkJoinPool pool) {
+    if (size != 0) {
+      throw new RuntimeException("BLinkTree must be empty to bulk load");
+    }
+    if (!(fillFactor > 0 && fillFactor <= 1)) {
+      throw new RuntimeException("Bulk load fill factor must be in (0, 1]");
+    }
+
+    final Mapping<K>[] sorted = mappings.toArray(Mapping[]::new);
+    MergeSort.sort(sorted, (a, b) -> root.compare(a.key, b.key), pool);
+    final var count = removeReplacedMappings(sorted);
+
+    final var capacity = getBulkLoadCapacity(fillFactor, maxSize);
+    final var leafCount = Math.max(1, (count + capacity - 1) / capacity);
+    final BLinkTreeNode<K>[] leaves = new BLinkTreeNode[leafCount];
+    forEach(leafCount, i -> {
+      final var from = (int) ((long) i * count / leafCount);
+      final var to = (int) ((long) (i + 1) * count / leafCount);
+      final var leaf = newNode(false);
+      for (int j = from; j < to; ++j) {
+        leaf.keys[j - from] = sorted[j].key;
+        leaf.values[j - from] = sorted[j].value;
+      }
+      leaf.size = to - from;
+      leaves[i] = leaf;
+    }, pool);
+
+    linkLevel(leaves, pool);
+    root = buildInternalLevels(leaves, fillFactor, pool);
+    size = count;
+  }
+
+  // compacts the sorted mappings so only the last of each run with the same key remains, returning how many remain
+  int removeReplacedMappings(final Mapping<K>[] sorted) {
+    var count = 0;
+    for (int i = 0; i < sorted.length; ++i) {
+      if (i + 1 < sorted.length && root.compare(sorted[i].key, sorted[i + 1].key) == 0) {
+        continue;
+      }
+      sorted[count++] = sorted[i];
+    }
+    return count;
+  }
+
+  // builds and links the internal levels over linked leaves, each level's nodes in parallel when given a pool
+  BLinkTreeNode<K> buildInternalLevels(final BLinkTreeNode<K>[] leaves, final double fillFactor,
+                                       final ForkJoinPool pool) {
+    final var capacity = Math.max(3, getBulkLoadCapacity(fillFactor, internalMaxSize));
+    var level = leaves;
+    while (level.length > 1) {
+      level = buildParents(level, capacity, pool);
+      linkLevel(level, pool);
+    }
+    return level[0];
+  }
+
+  @SuppressWarnings("unchecked")
+  BLinkTreeNode<K>[] buildParents(final BLinkTreeNode<K>[] level, final int capacity, final ForkJoinPool pool) {
+    // spread the children evenly over the fewest parents that can hold them, so every parent has at least two
+    final var count = (level.length + capacity - 1) / capacity;
+    final BLinkTreeNode<K>[] parents = new BLinkTreeNode[count];
+    forEach(count, p -> {
+      final var from = (int) ((long) p * level.length / count);
+      final var to = (int) ((long) (p + 1) * level.length / count);
+      final var parent = newNode(true);
+      for (int i = from; i < to; ++i) {
+        if (i > from) {
+          parent.keys[i - from - 1] = getSeparator(level[i]);
+        }
+        parent.values[i - from] = level[i];
+      }
+      parent.size = to - from;
+      parents[p] = parent;
+    }, pool);
+    return parents;
+  }
+
+  void linkLevel(final BLinkTreeNode<K>[] level, final ForkJoinPool pool) {
+    forEach(level.length, i -> {
+      level[i].left = i > 0 ? level[i - 1] : null;
+      level[i].right = i + 1 < level.length ? level[i + 1] : null;
+    }, pool);
+  }
+
+  static void forEach(final int count, final IntConsumer action, final ForkJoinPool pool) {
+    if (pool == null) {
+      IntStream.range(0, count).forEach(action);
+    } else {
+      pool.submit(() -> IntStream.range(0, count).parallel().forEach(action)).join();
+    }
+  }
+
+  // streams the entries in key order in the binary format described by Snapshot
+  public void writeSnapshot(final WritableByteChannel channel, final Codec<K> keyCodec, final Codec<V> valueCodec) {
+    Snapshot.write(this, channel, keyCodec, valueCodec);
+  }
+
+  // rebuilds an empty tree bottom up from a snapshot, without a put per entry
+  public void readSnapshot(final ReadableByteChannel channel, final Codec<K> keyCodec, final Codec<V> valueCodec) {
+    Snapshot.read(this, channel, keyCodec, valueCodec);
+  }
+
+  // entries per node, never past the point where a node splits
+  static int getBulkLoadCapacity(final double fillFactor, final int maxSize) {
+    final var capacity = (int) Math.ceil(fillFactor * (maxSize - 1));
+    return Math.min(maxSize - 1, Math.max((maxSize + 1) / 2, capacity));
+  }
+
+  private BLinkTreeNode<K> linkRight(final BLinkTreeNode<K> node) {
+    final var other = newNode(node.isInternal);
+    other.left = node;
+    node.right = other;
+    return other;
+  }
+
+  void balanceLastLeaves(final List<BLinkTreeNode<K>> leaves) {
+    if (leaves.size() < 2) {
+      return;
+    }
+
+    final var last = leaves.get(leaves.size() - 1);
+    final var previous = last.left;
+    if (last.size >= last.getMinSize()) {
+      return;
+    }
+
+    // the input ran out part way through the last leaf, split the entries of the last two leaves evenly
+    final var delta = (previous.size + last.size) / 2 - last.size;
+    System.arraycopy(last.keys, 0, last.keys, delta, last.size);
+    System.arraycopy(last.values, 0, last.values, delta, last.size);
+    System.arraycopy(previous.keys, previous.size - delta, last.keys, 0, delta);
+    System.arraycopy(previous.values, previous.size - delta, last.values, 0, delta);
+    Arrays.fill(previous.keys, previous.size - delta, previous.size, null);
+    Arrays.fill(previous.values, previous.size - delta, previous.size, null);
+    previous.size -= delta;
+    last.size += delta;
+  }
+
+  // separates the node's subtree from the one to its left, between the leaves either side of the boundary
+  private static <K extends Comparable<K>> K getSeparator(BLinkTreeNode<K> node) {
+    while (node.isInternal) {
+      node = node.getChildAt(0);
+    }
+    return node.separatorBetween(node.left.getKeyAt(node.left.size - 1), node.getKeyAt(0));
+  }
+
+  public MappingIterator iterator() {
+    BLinkTreeNode<K> node = root;
+    while (node != null && node.isInternal) {
+      node = node.getChildAt(0);
+    }
+    return new MappingIterator(node, 0, null, false);
+  }
+
+  // descends once to the leaf holding the lower bound then follows right links, a null bound leaves that end open
+  public MappingIterator scan(final K from, final boolean fromInclusive, final K to, final boolean toInclusive) {
+    if (from == null) {
+      final var iterator = iterator();
+      return new MappingIterator(iterator.node, 0, to, toInclusive);
+    }
+
+    final var leaf = root.findLeaf(from);
+    var index = leaf.search(from);
+    if (!fromInclusive && leaf.isKeyAt(index, from)) {
+      ++index;
+    }
+    return new MappingIterator(leaf, index, to, toInclusive);
+  }
+
+  @SuppressWarnings("unchecked")
+  public void scan(final K from, final boolean fromInclusive, final K to, final boolean toInclusive,
+                   final BiConsumer<? super K, ? super V> consumer) {
+    final var iterator = scan(from, fromInclusive, to, toInclusive);
+    // walk the leaves directly so the callback form creates no mapping per entry
+    var index = iterator.index;
+    for (var node = iterator.node; node != null; node = node.right, index = 0) {
+      for (; index < node.size; ++index) {
+        final var key = node.getKeyAt(index);
+        if (!iterator.isBelowUpperBound(key)) {
+          return;
+        }
+        consumer.accept(key, (V) node.values[index]);
+      }
+    }
+  }
+
+  public DescendingMappingIterator descendingIterator() {
+    BLinkTreeNode<K> node = root;
+    while (node != null && node.isInternal) {
+      node = node.getChildAt(node.size - 1);
+    }
+    return new DescendingMappingIterator(node, node == null ? -1 : node.size - 1, null, false);
+  }
+
+  // descends once to the leaf holding the upper bound then follows left links, a null bound leaves that end open
+  public DescendingMappingIterator descendingScan(final K from, final boolean fromInclusive, final K to,
+                                                  final boolean toInclusive) {
+    if (from == null) {
+      final var iterator = descendingIterator();
+      return new DescendingMappingIterator(iterator.node, iterator.index, to, toInclusive);
+    }
+
+    final var leaf = root.findLeaf(from);
+    var index = leaf.search(from);
+    if (!fromInclusive || !leaf.isKeyAt(index, from)) {
+      --index;
+    }
+    return new DescendingMappingIterator(leaf, index, to, toInclusive);
+  }
+
+  @SuppressWarnings("unchecked")
+  public void descendingScan(final K from, final boolean fromInclusive, final K to, final boolean toInclusive,
+                             final BiConsumer<? super K, ? super V> consumer) {
+    final var iterator = descendingScan(from, fromInclusive, to, toInclusive);
+    for (var node = iterator.node; node != null; node = node.left) {
+      for (var index = node == iterator.node ? iterator.index : node.size - 1; index >= 0; --index) {
+        final var key = node.getKeyAt(index);
+        if (!iterator.isAboveLowerBound(key)) {
+          return;
+        }
+        consumer.accept(key, (V) node.values[index]);
+      }
+    }
+  }
+
+  public MappingSpliterator spliterator() {
+    return root.isInternal
+        ? new MappingSpliterator(root, 0, root.size, size, true)
+        : new MappingSpliterator(root, null, size);
+  }
+
+  // the entries in key order, which split between subtrees when run in parallel
+  public Stream<Mapping<K>> stream() {
+    return StreamSupport.stream(spliterator(), false);
+  }
+
+  public class MappingIterator implements Iterator<Mapping<K>> {
+    BLinkTreeNode<K> node;
+    int index;
+    final K to;
+    final boolean toInclusive;
+
+    MappingIterator(final BLinkTreeNode<K> node, final int index, final K to, final boolean toInclusive) {
+      this.node = node;
+      this.index = index;
+      this.to = to;
+      this.toInclusive = toInclusive;
+      skipExhausted();
+    }
+
+    boolean isBelowUpperBound(final K key) {
+      if (to == null) {
+        return true;
+      }
+      final var cmp = node.compare(key, to);
+      return cmp < 0 || (cmp == 0 && toInclusive);
+    }
+
+    @Override
+    public boolean hasNext() {
+      return node != null && index < node.size && isBelowUpperBound(node.getKeyAt(index));
+    }
+
+    @Override
+    public Mapping<K> next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException("End of iterator.");
+      }
+
+      final var mapping = node.getMappingAt(index++);
+      skipExhausted();
+
+      return mapping;
+    }
+
+    private void skipExhausted() {
+      while (node != null && index == node.size && node.right != null) {
+        index = 0;
+        node = node.right;
+      }
+    }
+  }
+
+  public class DescendingMappingIterator implements Iterator<Mapping<K>> {
+    BLinkTreeNode<K> node;
+    int index;
+    final K to;
+    final boolean toInclusive;
+
+    DescendingMappingIterator(final BLinkTreeNode<K> node, final int index, final K to, final boolean toInclusive) {
+      this.node = node;
+      this.index = index;
+      this.to = to;
+      this.toInclusive = toInclusive;
+      skipExhausted();
+    }
+
+    boolean isAboveLowerBound(final K key) {
+      if (to == null) {
+        return true;
+      }
+      final var cmp = node.compare(key, to);
+      return cmp > 0 || (cmp == 0 && toInclusive);
+    }
+
+    @Override
+    public boolean hasNext() {
+      return node != null && index >= 0 && isAboveLowerBound(node.getKeyAt(index));
+    }
+
+    @Override
+    public Mapping<K> next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException("End of iterator.");
+      }
+
+      final var mapping = node.getMappingAt(index--);
+      skipExhausted();
+
+      return mapping;
+    }
+
+    private void skipExhausted() {
+      while (node != null && index < 0 && node.left != null) {
+        node = node.left;
+        index = node.size - 1;
+      }
+    }
+  }
+
+  // covers the subtrees under children [from, to) of an internal node, sizes are estimated once split
+  // the tree must not be modified while a stream over it runs
+  public class MappingSpliterator implements Spliterator<Mapping<K>> {
+    BLinkTreeNode<K> parent; // null once traversal starts
+    int from;
+    int to;
+    long estimate;
+    boolean exact;
+    BLinkTreeNode<K> leaf;
+    int index;
+    BLinkTreeNode<K> end;
+
+    MappingSpliterator(final BLinkTreeNode<K> parent, final int from, final int to, final long estimate,
+                       final boolean exact) {
+      this.parent = parent;
+      this.from = from;
+      this.to = to;
+      this.estimate = estimate;
+      this.exact = exact;
+    }
+
+    MappingSpliterator(final BLinkTreeNode<K> leaf, final BLinkTreeNode<K> end, final long estimate) {
+      this.leaf = leaf;
+      this.end = end;
+      this.estimate = estimate;
+      this.exact = true;
+    }
+
+    @Override
+    public MappingSpliterator trySplit() {
+      if (parent == null) {
+        return null;
+      }
+      while (to - from == 1) { // a single subtree splits among its own children
+        final var child = parent.getChildAt(from);
+        if (!child.isInternal) {
+          return null;
+        }
+        parent = child;
+        from = 0;
+        to = child.size;
+      }
+
+      final var middle = (from + to) >>> 1;
+      final var share = estimate * (middle - from) / (to - from);
+      final var prefix = new MappingSpliterator(parent, from, middle, share, false);
+      from = middle;
+      estimate -= share;
+      exact = false;
+      return prefix;
+    }
+
+    // fixes the leaves the range runs between, after which the spliterator no longer splits
+    void start() {
+      if (parent == null) {
+        return;
+      }
+      leaf = parent.getChildAt(from);
+      while (leaf.isInternal) {
+        leaf = leaf.getChildAt(0);
+      }
+      if (to < parent.size) {
+        end = parent.getChildAt(to);
+        while (end.isInternal) {
+          end = end.getChildAt(0);
+        }
+      } else { // the range ends with the node's last child, so the first leaf past it belongs to the next node
+        end = parent.getChildAt(to - 1);
+        while (end.isInternal) {
+          end = end.getChildAt(end.size - 1);
+        }
+        end = end.right;
+      }
+      parent = null;
+    }
+
+    @Override
+    public boolean tryAdvance(final Consumer<? super Mapping<K>> action) {
+      start();
+      while (leaf != end && index >= leaf.size) {
+        leaf = leaf.right;
+        index = 0;
+      }
+      if (leaf == end) {
+        return false;
+      }
+
+      action.accept(leaf.getMappingAt(index++));
+      estimate = Math.max(0, estimate - 1);
+      return true;
+    }
+
+    @Override
+    public void forEachRemaining(final Consumer<? super Mapping<K>> action) {
+      start();
+      for (; leaf != end; leaf = leaf.right, index = 0) {
+        for (; index < leaf.size; ++index) {
+          action.accept(leaf.getMappingAt(index));
+        }
+      }
+      estimate = 0;
+    }
+
+    @Override
+    public long estimateSize() {
+      return estimate;
+    }
+
+    @Override
+    public int characteristics() {
+      return ORDERED | SORTED | DISTINCT | NONNULL | (exact ? SIZED : 0);
+    }
+
+    @Override
+    public Comparator<? super Mapping<K>> getComparator() {
+      return comparator == null ? null : Comparator.comparing((Mapping<K> mapping) -> mapping.key, comparator);
+    }
+  }
+}
@@ -0,0 +1,158 @@
+package com.alistairpayn.blinktree;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+import java.util.concurrent.atomic.LongAdder;
+
+// counts splits, merges, redistributions and root changes in LongAdders, each also a JFR event when recording
+public class BLinkTreeMetrics {
+  static final String SPLIT = "split";
+  static final String MERGE = "merge";
+  static final String REDISTRIBUTE = "redistribute";
+  static final String GROW_ROOT = "grow root";
+  static final String SHRINK_ROOT = "shrink root";
+
+  final LongAdder splits = new LongAdder();
+  final LongAdder merges = new LongAdder();
+  final LongAdder redistributions = new LongAdder();
+  final LongAdder rootGrowths = new LongAdder();
+  final LongAdder rootShrinks = new LongAdder();
+
+  void split(final BLinkTreeNode<?> node) {
+    splits.increment();
+    emit(SPLIT, node);
+  }
+
+  void merge(final BLinkTreeNode<?> node) {
+    merges.increment();
+    emit(MERGE, node);
+  }
+
+  void redistribute(final BLinkTreeNode<?> node) {
+    redistributions.increment();
+    emit(REDISTRIBUTE, node);
+  }
+
+  void growRoot(final BLinkTreeNode<?> root) {
+    rootGrowths.increment();
+    emit(GROW_ROOT, root);
+  }
+
+  void shrinkRoot(final BLinkTreeNode<?> root) {
+    rootShrinks.increment();
+    emit(SHRINK_ROOT, root);
+  }
+
+  static void emit(final String operation, final BLinkTreeNode<?> node) {
+    final var event = new StructureEvent();
+    if (event.shouldCommit()) {
+      event.operation = operation;
+      event.level = level(node);
+      event.entries = node.size;
+      event.commit();
+    }
+  }
+
+  static int level(final BLinkTreeNode<?> node) {
+    var level = 0;
+    for (BLinkTreeNode<?> child = node; child.isInternal; child = child.getChildAt(0)) {
+      ++level;
+    }
+    return level;
+  }
+
+  public long getSplits() {
+    return splits.sum();
+  }
+
+  public long getMerges() {
+    return merges.sum();
+  }
+
+  public long getRedistributions() {
+    return redistributions.sum();
+  }
+
+  public long getRootGrowths() {
+    return rootGrowths.sum();
+  }
+
+  public long getRootShrinks() {
+    return rootShrinks.sum();
+  }
+
+  // the counters read together, each summed once, to diff against a later snapshot
+  public Counts snapshot() {
+    return new Counts(getSplits(), getMerges(), getRedistributions(), getRootGrowths(), getRootShrinks());
+  }
+
+  public static final class Counts {
+    final long splits;
+    final long merges;
+    final long redistributions;
+    final long rootGrowths;
+    final long rootShrinks;
+
+    Counts(final long splits, final long merges, final long redistributions, final long rootGrowths,
+           final long rootShrinks) {
+      this.splits = splits;
+      this.merges = merges;
+      this.redistributions = redistributions;
+      this.rootGrowths = rootGrowths;
+      this.rootShrinks = rootShrinks;
+    }
+
+    public long getSplits() {
+      return splits;
+    }
+
+    public long getMerges() {
+      return merges;
+    }
+
+    public long getRedistributions() {
+      return redistributions;
+    }
+
+    public long getRootGrowths() {
+      return rootGrowths;
+    }
+
+    public long getRootShrinks() {
+      return rootShrinks;
+    }
+
+    // the changes made between an earlier snapshot and this one
+    public Counts since(final Counts earlier) {
+      return new Counts(splits - earlier.splits, merges - earlier.merges, redistributions - earlier.redistributions,
+          rootGrowths - earlier.rootGrowths, rootShrinks - earlier.rootShrinks);
+    }
+
+    @Override
+    public String toString() {
+      return "splits " + splits + ", merges " + merges + ", redistributions " + redistributions + ", root growths "
+          + rootGrowths + ", root shrinks " + rootShrinks;
+    }
+  }
+
+  @Name("com.alistairpayn.blinktree.Structure")
+  @Label("B-link Tree Structural Change")
+  @Description("A node split, merge or redistribution, or the root growing or shrinking by a level")
+  @Category("B-link Tree")
+  public static class StructureEvent extends Event {
+    @Label("Operation")
+    String operation;
+
+    @Label("Level")
+    @Description("Height of the node above the leaves, 0 for a leaf")
+    int level;
+
+    @Label("Entries")
+    @Description("Entries in the node after the change")
+    int entries;
+  }
+}
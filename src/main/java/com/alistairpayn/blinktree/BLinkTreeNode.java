@@ -0,0 +1,515 @@
+package com.alistairpayn.blinktree;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+class BLinkTreeNode<K extends Comparable<K>> {
+  final Object[] keys;
+  final Object[] values;
+  final boolean isInternal;
+  final Comparator<? super K> comparator;
+  final int version; // the tree version the node was created in, nodes from older versions may be shared with snapshots
+  final BLinkTreeMetrics metrics;
+  final int minSize; // below it the node underflows and takes entries from or merges with a sibling
+  BLinkTreeNode<K> left;
+  BLinkTreeNode<K> right;
+  int size;
+
+  protected BLinkTreeNode(final int arraySize, final boolean isInternal, final Comparator<? super K> comparator,
+                          final int version, final BLinkTreeMetrics metrics, final int minSize) {
+    this.keys = new Object[arraySize];
+    this.values = new Object[arraySize];
+    this.size = 0;
+    this.isInternal = isInternal;
+    this.comparator = comparator;
+    this.version = version;
+    this.metrics = metrics;
+    this.minSize = minSize;
+  }
+
+  protected BLinkTreeNode(final BLinkTreeNode<K> node, final int version) {
+    this.keys = node.keys.clone();
+    this.values = node.values.clone();
+    this.size = node.size;
+    this.isInternal = node.isInternal;
+    this.comparator = node.comparator;
+    this.version = version;
+    this.metrics = node.metrics;
+    this.minSize = node.minSize;
+    this.left = node.left;
+    this.right = node.right;
+  }
+
+  public int getMinSize() {
+    return minSize;
+  }
+
+  public int getMaxSize() {
+    return values.length;
+  }
+
+  @SuppressWarnings("unchecked")
+  public K getKeyAt(final int index) {
+    return (K) keys[index];
+  }
+
+  public void setKeyAt(final int index, final K key) {
+    keys[index] = key;
+  }
+
+  public Object getValueAt(final int index) {
+    return values[index];
+  }
+
+  public void setValueAt(final int index, final Object value) {
+    values[index] = value;
+  }
+
+  @SuppressWarnings("unchecked")
+  public BLinkTreeNode<K> getChildAt(final int index) {
+    return (BLinkTreeNode<K>) values[index];
+  }
+
+  // the child at index ready to modify, copied in place of the old one if it belongs to an older version
+  public BLinkTreeNode<K> getWritableChildAt(final int index, final int version) {
+    final var child = getChildAt(index);
+    if (child.version == version) {
+      return child;
+    }
+
+    final var copy = new BLinkTreeNode<K>(child, version);
+    values[index] = copy;
+    if (copy.left != null) {
+      copy.left.right = copy;
+    }
+    if (copy.right != null) {
+      copy.right.left = copy;
+    }
+    return copy;
+  }
+
+  public void setMappingAt(final int index, final Mapping<K> mapping) {
+    keys[index] = mapping == null ? null : mapping.key;
+    values[index] = mapping == null ? null : mapping.value;
+  }
+
+  public Mapping<K> getMappingAt(final int index) { // entries are stored unboxed, a mapping is only a view
+    return new Mapping<>(getKeyAt(index), values[index]);
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  public boolean isOvercapacity() {
+    return size >= getMaxSize();
+  }
+
+  public boolean isUnderCapacity() {
+    return size < getMinSize();
+  }
+
+  public int compare(final K left, final K right) {
+    return comparator == null ? left.compareTo(right) : comparator.compare(left, right);
+  }
+
+  public boolean isKeyAt(final int index, final K key) {
+    return index < size && compare(getKeyAt(index), key) == 0;
+  }
+
+  public int search(final K key) { // compares the probe against the stored keys directly so lookups never allocate
+    int low = 0;
+    int high = (isInternal ? size - 1 : size) - 1;
+    while (low <= high) {
+      final int mid = (low + high) >>> 1;
+      final int cmp = compare(getKeyAt(mid), key);
+      if (cmp < 0) {
+        low = mid + 1;
+      } else if (cmp > 0) {
+        high = mid - 1;
+      } else {
+        return isInternal ? mid + 1 : mid;
+      }
+    }
+    return low;
+  }
+
+  public BLinkTreeNode<K> findLeaf(final K key) {
+    var node = this;
+    while (node.isInternal) {
+      node = node.getChildAt(node.search(key));
+    }
+    return node;
+  }
+
+  public Object get(final K key) {
+    final var leaf = findLeaf(key);
+    final var index = leaf.search(key);
+    return leaf.isKeyAt(index, key) ? leaf.values[index] : null;
+  }
+
+  // looks up every key a level at a time so the cache misses of independent descents overlap
+  @SuppressWarnings("unchecked")
+  public void getAll(final K[] keys, final Object[] out) {
+    if (keys.length == 0) {
+      return;
+    }
+
+    final BLinkTreeNode<K>[] nodes = new BLinkTreeNode[keys.length];
+    Arrays.fill(nodes, this);
+    while (nodes[0].isInternal) { // every leaf is at the same depth so the probes reach the leaves together
+      BLinkTreeNode<K> shared = null;
+      var index = 0;
+      for (int i = 0; i < keys.length; ++i) {
+        final var node = nodes[i];
+        if (node != shared || !node.routesTo(index, keys[i])) {
+          shared = node;
+          index = node.search(keys[i]);
+        }
+        nodes[i] = node.getChildAt(index);
+      }
+    }
+
+    for (int i = 0; i < keys.length; ++i) {
+      final var leaf = nodes[i];
+      final var index = leaf.search(keys[i]);
+      out[i] = leaf.isKeyAt(index, keys[i]) ? leaf.values[index] : null;
+    }
+  }
+
+  // whether the key lies between the separators either side of the child at index, which search would return
+  boolean routesTo(final int index, final K key) {
+    return (index == 0 || compare(getKeyAt(index - 1), key) <= 0)
+        && (index == size - 1 || compare(key, getKeyAt(index)) < 0);
+  }
+
+  public boolean putInternal(final K key, final Object value, final int version) {
+    final var index = search(key);
+    final var child = getWritableChildAt(index, version);
+    final var insertedKey = child.isInternal ? child.putInternal(key, value, version) : child.putLeaf(key, value);
+
+    if (child.isOvercapacity()) {
+      balanceOvercapacityChild(index, child, version);
+    }
+
+    return insertedKey;
+  }
+
+  // moves entries of a full child into a sibling or when neither sibling has room splits it
+  void balanceOvercapacityChild(final int index, final BLinkTreeNode<K> child, final int version) {
+    if (child.left != null && index > 0) { // redistributed the child with the child's left sibling
+      final var separator = getWritableChildAt(index - 1, version).tryTakeFromRightSibling(getKeyAt(index - 1));
+      if (separator != null) {
+        setKeyAt(index - 1, separator);
+        return;
+      }
+    }
+
+    if (child.right != null && index < size - 1) { // redistributed the child with the child's right sibling
+      final var separator = getWritableChildAt(index + 1, version).tryTakeFromLeftSibling(getKeyAt(index));
+      if (separator != null) {
+        setKeyAt(index, separator);
+        return;
+      }
+    }
+
+    final var promoted = child.split(); // when no redistribution is possible split the child
+    insert(promoted.key, promoted.value, index + 1); // +1 because the node resulting from the split is greater keys
+  }
+
+  // inserts keys[from, to), sorted and distinct, a run per child, returns the index after the last key inserted
+  // and adds the number of new keys to inserted[0]
+  public int putAll(final K[] keys, final Object[] values, final int from, final int to, final int version,
+                    final int[] inserted) {
+    var position = from;
+    while (position < to && !isOvercapacity()) {
+      final var index = search(keys[position]);
+      final var end = index < size - 1 ? findBatchEnd(keys, position, to, getKeyAt(index)) : to;
+      final var child = getWritableChildAt(index, version);
+      position = child.isInternal
+          ? child.putAll(keys, values, position, end, version, inserted)
+          : child.putLeafAll(keys, values, position, end, inserted);
+      if (child.isOvercapacity()) {
+        balanceOvercapacityChild(index, child, version);
+      }
+    }
+    return position;
+  }
+
+  // the first index in keys[from, to) whose key belongs right of the separator
+  int findBatchEnd(final K[] keys, final int from, final int to, final K separator) {
+    int low = from;
+    int high = to - 1;
+    while (low <= high) {
+      final int mid = (low + high) >>> 1;
+      if (compare(keys[mid], separator) < 0) {
+        low = mid + 1;
+      } else {
+        high = mid - 1;
+      }
+    }
+    return low;
+  }
+
+  // merges as many of keys[from, to) into the leaf as fit before it must split, in one pass from the back
+  public int putLeafAll(final K[] keys, final Object[] values, final int from, final int to, final int[] inserted) {
+    var newSize = size;
+    var end = from;
+    for (int i = 0; end < to; ++end) {
+      while (i < size && compare(getKeyAt(i), keys[end]) < 0) {
+        ++i;
+      }
+      if (i < size && compare(getKeyAt(i), keys[end]) == 0) { // overwrites take no room
+        continue;
+      }
+      if (newSize == getMaxSize()) {
+        break;
+      }
+      ++newSize;
+    }
+
+    var write = newSize - 1;
+    var read = size - 1;
+    for (int batch = end - 1; batch >= from; --write) {
+      final var cmp = read < 0 ? -1 : compare(getKeyAt(read), keys[batch]);
+      if (cmp > 0) {
+        this.keys[write] = this.keys[read];
+        this.values[write] = this.values[read--];
+      } else {
+        this.keys[write] = cmp == 0 ? this.keys[read--] : keys[batch];
+        this.values[write] = values[batch--];
+      }
+    }
+
+    inserted[0] += newSize - size;
+    size = newSize;
+    return end;
+  }
+
+  public boolean putLeaf(final K key, final Object value) {
+    final var index = search(key);
+    if (isKeyAt(index, key)) { // overwrite value of an existing key
+      values[index] = value;
+      return false;
+    } else { // insert a new key value pair
+      insert(key, value, index);
+      return true;
+    }
+  }
+
+  public void insert(final K key, final Object value, final int index) {
+    if (isInternal) { // the key separates the child at index - 1 from the inserted child
+      System.arraycopy(keys, index - 1, keys, index, size - index + 1);
+      keys[index - 1] = key;
+    } else {
+      System.arraycopy(keys, index, keys, index + 1, size - index);
+      keys[index] = key;
+    }
+    System.arraycopy(values, index, values, index + 1, size - index);
+    values[index] = value;
+    ++size;
+  }
+
+  public Mapping<K> split() {
+    BLinkTreeNode<K> other = new BLinkTreeNode<K>(values.length, isInternal, comparator, version, metrics, minSize);
+
+    other.size = size / 2;
+    size -= other.size;
+
+    System.arraycopy(keys, size, other.keys, 0, other.size);
+    System.arraycopy(values, size, other.values, 0, other.size);
+    Arrays.fill(keys, size, size + other.size, null);
+    Arrays.fill(values, size, size + other.size, null);
+
+    other.left = this;
+    other.right = right;
+    if (right != null) {
+      right.left = other;
+    }
+    right = other;
+    metrics.split(this);
+
+    if (isInternal) {
+      K separator = getKeyAt(size - 1);
+      setKeyAt(size - 1, null);
+      other.setKeyAt(other.size - 1, null);
+      return new Mapping<>(separator, other);
+    }
+
+    return new Mapping<>(separatorBetween(getKeyAt(size - 1), other.getKeyAt(0)), other);
+  }
+
+  // the shortest key separating last from first, for naturally ordered strings first cut past where it departs from last
+  @SuppressWarnings("unchecked")
+  K separatorBetween(final K last, final K first) {
+    if (comparator != null || !(first instanceof String)) {
+      return first;
+    }
+
+    final var lower = (String) last;
+    final var upper = (String) first;
+    final var length = Math.min(lower.length(), upper.length());
+    var common = 0;
+    while (common < length && lower.charAt(common) == upper.charAt(common)) {
+      ++common;
+    }
+    return common + 1 < upper.length() ? (K) upper.substring(0, common + 1) : first;
+  }
+
+  public boolean removeInternal(final K key, final int version) {
+    final var index = search(key);
+    final var child = getWritableChildAt(index, version);
+    final var removed = child.isInternal ? child.removeInternal(key, version) : child.removeLeaf(key);
+
+    if (!child.isUnderCapacity()) { // the child is not full return
+      return removed;
+    }
+
+    if (index > 0) { // either sibling may give up entries or be merged below, so neither may be shared
+      getWritableChildAt(index - 1, version);
+    }
+    if (index < size - 1) {
+      getWritableChildAt(index + 1, version);
+    }
+
+    if (child.left != null && index > 0) { // redistributed the child with the child's left sibling
+      final var separator = child.tryTakeFromLeftSibling(getKeyAt(index - 1));
+      if (separator != null) {
+        setKeyAt(index - 1, separator);
+        return removed;
+      }
+    }
+
+    if (child.right != null && index < size - 1) { // redistributed the child with the child's right sibling
+      final var separator = child.tryTakeFromRightSibling(getKeyAt(index));
+      if (separator != null) {
+        setKeyAt(index, separator);
+        return removed;
+      }
+    }
+
+    if (child.left != null && index > 0) { // when no redistribution is possible merge the child with its left sibling
+      if (child.left.merge(getKeyAt(index - 1))) {
+        delete(index);
+        return removed;
+      }
+    }
+
+    if (child.right != null && index < size - 1) { // when no redistribution is possible merge the child with its right sibling
+      if (child.merge(getKeyAt(index))) {
+        delete(index + 1);
+        return removed;
+      }
+    }
+
+    return removed;
+  }
+
+  public boolean removeLeaf(final K key) {
+    final var index = search(key);
+    if (isKeyAt(index, key)) {
+      delete(index);
+      return true;
+    }
+    return false;
+  }
+
+  public void delete(final int index) {
+    if (isInternal) { // drop the key separating the deleted child from its left sibling
+      keys[index - 1] = index < size - 1 ? keys[index] : null;
+    }
+    if (index < size - 1) {
+      System.arraycopy(keys, index + 1, keys, index, size - index - 1);
+      System.arraycopy(values, index + 1, values, index, size - index - 1);
+    }
+    keys[size - 1] = null;
+    values[size - 1] = null;
+    --size;
+  }
+
+  public boolean merge(final K separator) {
+    if (size + right.size >= getMaxSize()) { // can't merge nodes if resulting node will be overcapacity
+      return false;
+    }
+
+    if (isInternal) {
+      setKeyAt(size - 1, separator);
+    }
+
+    System.arraycopy(right.keys, 0, keys, size, right.size);
+    System.arraycopy(right.values, 0, values, size, right.size);
+    Arrays.fill(right.keys, 0, right.size, null);
+    Arrays.fill(right.values, 0, right.size, null);
+
+    size += right.size;
+    right.size = 0;
+
+    right = right.right;
+    if (right != null) {
+      right.left = this;
+    }
+    metrics.merge(this);
+
+    return true;
+  }
+
+  public K tryTakeFromRightSibling(final K separator) {
+    if (size >= getMaxSize() - 1 || right.size <= right.getMinSize()) {
+      return null;
+    }
+
+    if (isInternal) {
+      setKeyAt(size - 1, separator);
+    }
+
+    int delta = right.size - (size + right.size) / 2;
+    System.arraycopy(right.keys, 0, keys, size, delta);
+    System.arraycopy(right.values, 0, values, size, delta);
+    System.arraycopy(right.keys, delta, right.keys, 0, right.size - delta);
+    System.arraycopy(right.values, delta, right.values, 0, right.size - delta);
+    Arrays.fill(right.keys, right.size - delta, right.size, null);
+    Arrays.fill(right.values, right.size - delta, right.size, null);
+
+    size += delta;
+    right.size -= delta;
+    metrics.redistribute(this);
+
+    if (isInternal) {
+      K key = getKeyAt(size - 1);
+      setKeyAt(size - 1, null);
+      return key;
+    }
+
+    return separatorBetween(getKeyAt(size - 1), right.getKeyAt(0));
+  }
+
+  public K tryTakeFromLeftSibling(final K separator) {
+    if (size >= getMaxSize() - 1 || left.size <= left.getMinSize()) {
+      return null;
+    }
+
+    if (isInternal) {
+      left.setKeyAt(left.size - 1, separator);
+    }
+
+    int delta = left.size - (size + left.size) / 2;
+    System.arraycopy(keys, 0, keys, delta, size);
+    System.arraycopy(values, 0, values, delta, size);
+    System.arraycopy(left.keys, left.size - delta, keys, 0, delta);
+    System.arraycopy(left.values, left.size - delta, values, 0, delta);
+    Arrays.fill(left.keys, left.size - delta, left.size, null);
+    Arrays.fill(left.values, left.size - delta, left.size, null);
+
+    size += delta;
+    left.size -= delta;
+    metrics.redistribute(this);
+
+    if (isInternal) {
+      K key = left.getKeyAt(left.size - 1);
+      left.setKeyAt(left.size - 1, null);
+      return key;
+    }
+
+    return separatorBetween(left.getKeyAt(left.size - 1), getKeyAt(0));
+  }
+}
@@ -0,0 +1,144 @@
+package com.alistairpayn.blinktree;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.function.BiConsumer;
+
+// sibling links belong to the live tree, so the view moves between leaves through the parents
+public class BLinkTreeSnapshot<K extends Comparable<K>, V> {
+  final BLinkTreeNode<K> root;
+  final int size;
+
+  BLinkTreeSnapshot(final BLinkTreeNode<K> root, final int size) {
+    this.root = root;
+    this.size = size;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  @SuppressWarnings("unchecked")
+  public V get(final K key) {
+    return (V) root.get(key);
+  }
+
+  public BLinkTreeStats stats() {
+    return BLinkTreeStats.of(root, size, BLinkTreeStats::estimateKeyBytes);
+  }
+
+  public CompletableFuture<BLinkTreeStats> statsAsync(final Executor executor) {
+    return CompletableFuture.supplyAsync(this::stats, executor);
+  }
+
+  public MappingIterator iterator() {
+    return scan(null, true, null, true);
+  }
+
+  public MappingIterator scan(final K from, final boolean fromInclusive, final K to, final boolean toInclusive) {
+    return new MappingIterator(from, fromInclusive, to, toInclusive);
+  }
+
+  @SuppressWarnings("unchecked")
+  public void scan(final K from, final boolean fromInclusive, final K to, final boolean toInclusive,
+                   final BiConsumer<? super K, ? super V> consumer) {
+    final var iterator = scan(from, fromInclusive, to, toInclusive);
+    while (iterator.hasNext()) {
+      consumer.accept(iterator.leaf.getKeyAt(iterator.index), (V) iterator.leaf.values[iterator.index]);
+      iterator.advance();
+    }
+  }
+
+  // walks the leaves in order keeping the path from the root, so the next leaf is found through the parents
+  public class MappingIterator implements Iterator<Mapping<K>> {
+    final BLinkTreeNode<K>[] path;
+    final int[] indexes;
+    final K to;
+    final boolean toInclusive;
+    BLinkTreeNode<K> leaf;
+    int index;
+
+    @SuppressWarnings("unchecked")
+    MappingIterator(final K from, final boolean fromInclusive, final K to, final boolean toInclusive) {
+      var height = 1;
+      for (var node = root; node.isInternal; node = node.getChildAt(0)) {
+        ++height;
+      }
+      this.path = new BLinkTreeNode[height];
+      this.indexes = new int[height];
+      this.to = to;
+      this.toInclusive = toInclusive;
+
+      var node = root;
+      for (int level = 0; node.isInternal; ++level) {
+        path[level] = node;
+        indexes[level] = from == null ? 0 : node.search(from);
+        node = node.getChildAt(indexes[level]);
+      }
+      leaf = node;
+      index = from == null ? 0 : node.search(from);
+      if (from != null && !fromInclusive && leaf.isKeyAt(index, from)) {
+        ++index;
+      }
+      skipExhausted();
+    }
+
+    @Override
+    public boolean hasNext() {
+      if (leaf == null || index >= leaf.size) {
+        return false;
+      }
+      if (to == null) {
+        return true;
+      }
+      final var cmp = leaf.compare(leaf.getKeyAt(index), to);
+      return cmp < 0 || (cmp == 0 && toInclusive);
+    }
+
+    @Override
+    public Mapping<K> next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException("End of iterator.");
+      }
+
+      final var mapping = leaf.getMappingAt(index);
+      advance();
+
+      return mapping;
+    }
+
+    void advance() {
+      ++index;
+      skipExhausted();
+    }
+
+    private void skipExhausted() {
+      while (leaf != null && index >= leaf.size) {
+        var level = path.length - 2;
+        while (level >= 0 && indexes[level] == path[level].size - 1) { // climb until a parent has a child to the right
+          --level;
+        }
+        if (level < 0) {
+          leaf = null;
+          return;
+        }
+
+        ++indexes[level];
+        var node = path[level].getChildAt(indexes[level]);
+        for (++level; node.isInternal; ++level) { // then descend along the leftmost children
+          path[level] = node;
+          indexes[level] = 0;
+          node = node.getChildAt(0);
+        }
+        leaf = node;
+        index = 0;
+      }
+    }
+  }
+}
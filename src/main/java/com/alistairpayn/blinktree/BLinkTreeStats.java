@@ -0,0 +1,147 @@
+package com.alistairpayn.blinktree;
+
+import java.util.Arrays;
+import java.util.function.ToLongFunction;
+
+// per level node and entry counts, underfull nodes and an occupancy histogram in tenths, level 0 being the leaves
+// retained bytes assume compressed references and count nodes, their arrays and leaf keys, not values
+public class BLinkTreeStats {
+  static final int BUCKETS = 10;
+  static final long NODE_BYTES = 48;
+  static final long ARRAY_HEADER_BYTES = 16;
+  static final long REFERENCE_BYTES = 4;
+
+  final long size;
+  final Level[] levels;
+  long retainedBytes;
+
+  BLinkTreeStats(final long size, final int height) {
+    this.size = size;
+    this.levels = new Level[height];
+    for (int level = 0; level < height; ++level) {
+      levels[level] = new Level(level);
+    }
+  }
+
+  // walks the parents' child arrays rather than sibling links, so a snapshot is read as safely as the live tree
+  static <K extends Comparable<K>> BLinkTreeStats of(final BLinkTreeNode<K> root, final long size,
+                                                     final ToLongFunction<? super K> keyBytes) {
+    final var stats = new BLinkTreeStats(size, BLinkTreeMetrics.level(root) + 1);
+    stats.visit(root, stats.levels.length - 1, true, keyBytes);
+    return stats;
+  }
+
+  <K extends Comparable<K>> void visit(final BLinkTreeNode<K> node, final int level, final boolean isRoot,
+                                       final ToLongFunction<? super K> keyBytes) {
+    levels[level].add(node, isRoot);
+    retainedBytes += NODE_BYTES + 2 * align(ARRAY_HEADER_BYTES + REFERENCE_BYTES * node.getMaxSize());
+    for (int i = 0; i < node.size; ++i) {
+      if (node.isInternal) {
+        visit(node.getChildAt(i), level - 1, false, keyBytes);
+      } else {
+        retainedBytes += keyBytes.applyAsLong(node.getKeyAt(i));
+      }
+    }
+  }
+
+  static long align(final long bytes) {
+    return (bytes + 7) & ~7L;
+  }
+
+  // a rough shallow size for the common key types, and a boxed primitive's size for anything else
+  static long estimateKeyBytes(final Object key) {
+    if (key instanceof String) {
+      return align(24) + align(ARRAY_HEADER_BYTES + ((String) key).length() * 2L);
+    }
+    if (key instanceof Long || key instanceof Double) {
+      return 24;
+    }
+    return 16;
+  }
+
+  public long getSize() {
+    return size;
+  }
+
+  public int getHeight() {
+    return levels.length;
+  }
+
+  public Level getLevel(final int level) {
+    return levels[level];
+  }
+
+  public long getLeafChainLength() {
+    return levels[0].nodes;
+  }
+
+  public long getRetainedBytes() {
+    return retainedBytes;
+  }
+
+  @Override
+  public String toString() {
+    final var builder = new StringBuilder("height ").append(levels.length).append(", entries ").append(size)
+        .append(", retained bytes ").append(retainedBytes);
+    for (int level = levels.length - 1; level >= 0; --level) {
+      builder.append('\n').append(levels[level]);
+    }
+    return builder.toString();
+  }
+
+  public static class Level {
+    final int level;
+    long nodes;
+    long entries;
+    long underfull;
+    long slots;
+    final long[] histogram = new long[BUCKETS];
+
+    Level(final int level) {
+      this.level = level;
+    }
+
+    void add(final BLinkTreeNode<?> node, final boolean isRoot) {
+      ++nodes;
+      entries += node.size;
+      slots += node.getMaxSize();
+      if (!isRoot && node.isUnderCapacity()) { // the root alone may hold fewer than the minimum
+        ++underfull;
+      }
+      ++histogram[Math.min(BUCKETS - 1, node.size * BUCKETS / node.getMaxSize())];
+    }
+
+    public int getLevel() {
+      return level;
+    }
+
+    public long getNodes() {
+      return nodes;
+    }
+
+    public long getEntries() {
+      return entries;
+    }
+
+    // nodes other than the root holding fewer entries than getMinSize
+    public long getUnderfull() {
+      return underfull;
+    }
+
+    // histogram[i] counts the nodes holding from i to i + 1 tenths of getMaxSize entries
+    public long[] getHistogram() {
+      return histogram.clone();
+    }
+
+    // entries as a fraction of the level's capacity
+    public double getFill() {
+      return slots == 0 ? 0 : (double) entries / slots;
+    }
+
+    @Override
+    public String toString() {
+      return "level " + level + ": nodes " + nodes + ", entries " + entries + ", fill " + getFill()
+          + ", underfull " + underfull + ", histogram " + Arrays.toString(histogram);
+    }
+  }
+}
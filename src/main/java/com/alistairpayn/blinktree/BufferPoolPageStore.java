@@ -0,0 +1,402 @@
+package com.alistairpayn.blinktree;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// caches pages of a MappedPageStore-layout file in a fixed number of frames, evicting by LRU-2
+public class BufferPoolPageStore implements PageStore {
+  final FileChannel channel;
+  final int pageSize;
+  final ByteBuffer frames;
+  final long[] framePages;
+  final int[] pinCounts;
+  final long[] lastPins;
+  final long[] previousPins; // 0 until a frame's page is pinned a second time
+  final boolean[] dirty;
+  final int[] heap; // the unpinned frames holding pages, a min-heap on (previous pin, last pin)
+  final int[] heapIndex; // a frame's position in the heap, -1 while it is pinned or empty
+  final int[] emptyFrames;
+  int heapSize;
+  int emptyCount;
+  final long[] tablePages; // open addressing from page id to frame, NIL marks an empty slot
+  final int[] tableFrames;
+  final long[] historyPages;
+  final long[] historyPins;
+  final long[] metadata = new long[METADATA_SLOTS];
+  long pageCount;
+  long freeList;
+  long clock;
+
+  long hits;
+  long misses;
+  long evictions;
+  long writes;
+
+  public BufferPoolPageStore(final Path path, final int pageSize, final int frameCount) {
+    if (PagedBLinkTreeNode.capacity(pageSize) < 4) {
+      throw new RuntimeException("Page size " + pageSize + " does not fit a node of at least 4 entries");
+    }
+    if (pageSize < MappedPageStore.HEADER_METADATA + METADATA_SLOTS * Long.BYTES) {
+      throw new RuntimeException("Page size " + pageSize + " does not fit the page file header");
+    }
+    if (frameCount < 8) { // a put or remove pins at most five pages at once whatever the height of the tree
+      throw new RuntimeException("Buffer pool needs at least 8 frames");
+    }
+    if ((long) frameCount * pageSize > Integer.MAX_VALUE) {
+      throw new RuntimeException("Buffer pool of " + frameCount + " frames of " + pageSize
+          + " bytes exceeds the 2GB a single direct buffer can hold");
+    }
+
+    this.pageSize = pageSize;
+    this.frames = ByteBuffer.allocateDirect(frameCount * pageSize).order(ByteOrder.LITTLE_ENDIAN);
+    this.framePages = new long[frameCount];
+    this.pinCounts = new int[frameCount];
+    this.lastPins = new long[frameCount];
+    this.previousPins = new long[frameCount];
+    this.dirty = new boolean[frameCount];
+    this.heap = new int[frameCount];
+    this.heapIndex = new int[frameCount];
+    this.emptyFrames = new int[frameCount];
+    for (int frame = 0; frame < frameCount; ++frame) {
+      heapIndex[frame] = -1;
+      emptyFrames[emptyCount++] = frameCount - 1 - frame;
+    }
+    this.tablePages = new long[Integer.highestOneBit(frameCount) << 2];
+    this.tableFrames = new int[tablePages.length];
+    this.historyPages = new long[tablePages.length];
+    this.historyPins = new long[tablePages.length];
+    try {
+      this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+          StandardOpenOption.WRITE);
+      readHeader(path);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  void readHeader(final Path path) throws IOException {
+    if (channel.size() == 0) {
+      pageCount = 1;
+      freeList = NIL;
+      return;
+    }
+
+    final var header = ByteBuffer.allocate(pageSize).order(ByteOrder.LITTLE_ENDIAN);
+    channel.read(header, 0);
+    if (header.getLong(MappedPageStore.HEADER_MAGIC) != MappedPageStore.MAGIC) {
+      throw new RuntimeException(path + " is not a page file");
+    }
+    if (header.getInt(MappedPageStore.HEADER_PAGE_SIZE) != pageSize) {
+      throw new RuntimeException(path + " has page size " + header.getInt(MappedPageStore.HEADER_PAGE_SIZE)
+          + " not " + pageSize);
+    }
+    pageCount = header.getLong(MappedPageStore.HEADER_PAGE_COUNT);
+    freeList = header.getLong(MappedPageStore.HEADER_FREE_LIST);
+    for (int slot = 0; slot < METADATA_SLOTS; ++slot) {
+      metadata[slot] = header.getLong(MappedPageStore.HEADER_METADATA + slot * Long.BYTES);
+    }
+  }
+
+  @Override
+  public int pageSize() {
+    return pageSize;
+  }
+
+  @Override
+  public long allocate() {
+    if (freeList != NIL) {
+      final var page = freeList;
+      final var frame = fix(page);
+      freeList = frames.getLong(frame * pageSize);
+      release(frame, false);
+      return page;
+    }
+    return pageCount++;
+  }
+
+  @Override
+  public void free(final long page) {
+    final var frame = fix(page);
+    frames.putLong(frame * pageSize, freeList);
+    release(frame, true);
+    freeList = page;
+  }
+
+  @Override
+  public void pin(final long page, final PagedBLinkTreeNode node) {
+    node.attach(page, frames, fix(page) * pageSize);
+  }
+
+  @Override
+  public void unpin(final PagedBLinkTreeNode node) {
+    release(node.base / pageSize, node.dirty);
+  }
+
+  @Override
+  public long getMetadata(final int slot) {
+    return metadata[slot];
+  }
+
+  @Override
+  public void setMetadata(final int slot, final long value) {
+    metadata[slot] = value;
+  }
+
+  public long getHits() {
+    return hits;
+  }
+
+  public long getMisses() {
+    return misses;
+  }
+
+  public long getEvictions() {
+    return evictions;
+  }
+
+  public long getWrites() {
+    return writes;
+  }
+
+  public int getPinnedFrames() {
+    var pinned = 0;
+    for (var count : pinCounts) {
+      if (count > 0) {
+        ++pinned;
+      }
+    }
+    return pinned;
+  }
+
+  // writes every dirty frame and the header back to the file and forces them to the device
+  @Override
+  public void flush() {
+    try {
+      for (int frame = 0; frame < framePages.length; ++frame) {
+        if (dirty[frame]) {
+          write(frame);
+        }
+      }
+
+      final var header = ByteBuffer.allocate(pageSize).order(ByteOrder.LITTLE_ENDIAN);
+      header.putLong(MappedPageStore.HEADER_MAGIC, MappedPageStore.MAGIC);
+      header.putInt(MappedPageStore.HEADER_PAGE_SIZE, pageSize);
+      header.putLong(MappedPageStore.HEADER_PAGE_COUNT, pageCount);
+      header.putLong(MappedPageStore.HEADER_FREE_LIST, freeList);
+      for (int slot = 0; slot < METADATA_SLOTS; ++slot) {
+        header.putLong(MappedPageStore.HEADER_METADATA + slot * Long.BYTES, metadata[slot]);
+      }
+      while (header.hasRemaining()) {
+        channel.write(header, header.position());
+      }
+      channel.force(false);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  @Override
+  public void close() {
+    flush();
+    try {
+      channel.close();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  // returns the frame holding the page with its pin count raised, reading the page in on a miss
+  int fix(final long page) {
+    var frame = lookup(page);
+    if (frame >= 0) {
+      ++hits;
+      if (pinCounts[frame] == 0) {
+        heapRemove(frame);
+      }
+      previousPins[frame] = lastPins[frame];
+    } else {
+      ++misses;
+      frame = evict();
+      read(page, frame);
+      framePages[frame] = page;
+      final var history = slot(page);
+      previousPins[frame] = historyPages[history] == page ? historyPins[history] : 0;
+      insert(page, frame);
+    }
+    lastPins[frame] = ++clock;
+    ++pinCounts[frame];
+    return frame;
+  }
+
+  void release(final int frame, final boolean isDirty) {
+    dirty[frame] |= isDirty;
+    if (--pinCounts[frame] == 0) {
+      heapAdd(frame);
+    }
+  }
+
+  // frames pinned once since they were loaded go first, then the frame whose second most recent pin is oldest
+  int evict() {
+    if (emptyCount > 0) {
+      return emptyFrames[--emptyCount];
+    }
+    if (heapSize == 0) {
+      throw new RuntimeException("Every frame of the buffer pool is pinned");
+    }
+
+    final var victim = heap[0];
+    heapRemove(victim);
+    if (dirty[victim]) {
+      write(victim);
+    }
+    final var history = slot(framePages[victim]);
+    historyPages[history] = framePages[victim];
+    historyPins[history] = lastPins[victim];
+    remove(framePages[victim]);
+    framePages[victim] = NIL;
+    ++evictions;
+    return victim;
+  }
+
+  boolean isOlder(final int frame, final int other) {
+    return previousPins[frame] < previousPins[other]
+        || (previousPins[frame] == previousPins[other] && lastPins[frame] < lastPins[other]);
+  }
+
+  void heapAdd(final int frame) {
+    heapIndex[frame] = heapSize;
+    heap[heapSize++] = frame;
+    siftUp(frame);
+  }
+
+  void heapRemove(final int frame) {
+    final var index = heapIndex[frame];
+    final var last = heap[--heapSize];
+    heapIndex[frame] = -1;
+    if (last != frame) {
+      heap[index] = last;
+      heapIndex[last] = index;
+      siftDown(last);
+      siftUp(last);
+    }
+  }
+
+  void siftUp(final int frame) {
+    var index = heapIndex[frame];
+    while (index > 0) {
+      final var parent = (index - 1) / 2;
+      if (!isOlder(frame, heap[parent])) {
+        break;
+      }
+      heap[index] = heap[parent];
+      heapIndex[heap[index]] = index;
+      index = parent;
+    }
+    heap[index] = frame;
+    heapIndex[frame] = index;
+  }
+
+  void siftDown(final int frame) {
+    var index = heapIndex[frame];
+    while (true) {
+      var child = 2 * index + 1;
+      if (child >= heapSize) {
+        break;
+      }
+      if (child + 1 < heapSize && isOlder(heap[child + 1], heap[child])) {
+        ++child;
+      }
+      if (!isOlder(heap[child], frame)) {
+        break;
+      }
+      heap[index] = heap[child];
+      heapIndex[heap[index]] = index;
+      index = child;
+    }
+    heap[index] = frame;
+    heapIndex[frame] = index;
+  }
+
+  void read(final long page, final int frame) {
+    final var buffer = frames.duplicate().position(frame * pageSize).limit((frame + 1) * pageSize);
+    try {
+      var position = page * pageSize;
+      while (buffer.hasRemaining()) {
+        final var read = channel.read(buffer, position);
+        if (read < 0) { // pages allocated since the file last grew have not been written yet
+          while (buffer.hasRemaining()) {
+            buffer.put((byte) 0);
+          }
+        }
+        position += Math.max(read, 0);
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  void write(final int frame) {
+    final var buffer = frames.duplicate().position(frame * pageSize).limit((frame + 1) * pageSize);
+    try {
+      var position = framePages[frame] * pageSize;
+      while (buffer.hasRemaining()) {
+        position += channel.write(buffer, position);
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    dirty[frame] = false;
+    ++writes;
+  }
+
+  int slot(final long page) {
+    return (int) (page * 0x9E3779B97F4A7C15L >>> 32) & (tablePages.length - 1);
+  }
+
+  int lookup(final long page) {
+    for (int slot = slot(page); tablePages[slot] != NIL; slot = (slot + 1) & (tablePages.length - 1)) {
+      if (tablePages[slot] == page) {
+        return tableFrames[slot];
+      }
+    }
+    return -1;
+  }
+
+  void insert(final long page, final int frame) {
+    var slot = slot(page);
+    while (tablePages[slot] != NIL) {
+      slot = (slot + 1) & (tablePages.length - 1);
+    }
+    tablePages[slot] = page;
+    tableFrames[slot] = frame;
+  }
+
+  // deletes by shifting later entries of the probe sequence back so lookups never need tombstones
+  void remove(final long page) {
+    final var mask = tablePages.length - 1;
+    var slot = slot(page);
+    while (tablePages[slot] != page) {
+      slot = (slot + 1) & mask;
+    }
+
+    var next = slot;
+    while (true) {
+      next = (next + 1) & mask;
+      if (tablePages[next] == NIL) {
+        break;
+      }
+      final var home = slot(tablePages[next]);
+      if (((next - home) & mask) >= ((next - slot) & mask)) {
+        tablePages[slot] = tablePages[next];
+        tableFrames[slot] = tableFrames[next];
+        slot = next;
+      }
+    }
+    tablePages[slot] = NIL;
+  }
+}
@@ -0,0 +1,129 @@
+package com.alistairpayn.blinktree;
+
+import java.util.AbstractMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.function.BiConsumer;
+
+// keys are byte arrays in unsigned lexicographic order, stored without a copy so a key must not change once put
+public class BytesBLinkTree<V> {
+  final int maxSize;
+  final int minSize;
+  int size = 0;
+
+  BytesBLinkTreeNode root;
+
+  public BytesBLinkTree(final int maxSize) {
+    this(maxSize / 2, maxSize);
+  }
+
+  public BytesBLinkTree(final int minSize, final int maxSize) {
+    if (maxSize < 4) {
+      throw new RuntimeException("BTree node size must be greater than 4");
+    }
+    if (minSize < 1 || minSize > maxSize / 2) {
+      throw new RuntimeException("Minimum size must be in [1, " + maxSize / 2 + "], found " + minSize);
+    }
+    this.minSize = minSize;
+    this.maxSize = maxSize;
+    this.root = new BytesBLinkTreeNode(maxSize, false, minSize);
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  @SuppressWarnings("unchecked")
+  public V get(final byte[] key) {
+    return (V) root.get(key, BytesBLinkTreeNode.prefix(key));
+  }
+
+  public void put(final byte[] key, final V value) {
+    final var prefix = BytesBLinkTreeNode.prefix(key);
+    if (root.isInternal ? root.putInternal(key, prefix, value) : root.putLeaf(key, prefix, value)) {
+      ++size;
+    }
+
+    if (root.isOvercapacity()) { // when the root is full grow the tree by creating a new root
+      final var separator = root.split();
+      final var node = new BytesBLinkTreeNode(maxSize, true, Math.max(2, minSize)); // an internal node keeps two children
+      node.setKeyAt(0, separator);
+      node.values[0] = root;
+      node.values[1] = root.right;
+      node.size = 2;
+      root = node;
+    }
+  }
+
+  public boolean remove(final byte[] key) {
+    final var prefix = BytesBLinkTreeNode.prefix(key);
+    if (root.isInternal ? root.removeInternal(key, prefix) : root.removeLeaf(key, prefix)) {
+      --size;
+      if (root.size == 1 && root.isInternal) {
+        root = root.getChildAt(0);
+      }
+      return true;
+    }
+
+    return false;
+  }
+
+  @SuppressWarnings("unchecked")
+  public void forEach(final BiConsumer<? super byte[], ? super V> consumer) {
+    for (var node = leftmostLeaf(); node != null; node = node.right) {
+      for (int i = 0; i < node.size; ++i) {
+        consumer.accept(node.keys[i], (V) node.values[i]);
+      }
+    }
+  }
+
+  public EntryIterator iterator() {
+    return new EntryIterator(leftmostLeaf());
+  }
+
+  BytesBLinkTreeNode leftmostLeaf() {
+    var node = root;
+    while (node.isInternal) {
+      node = node.getChildAt(0);
+    }
+    return node;
+  }
+
+  // byte arrays are not Comparable, so entries are returned as map entries rather than mappings
+  public class EntryIterator implements Iterator<Map.Entry<byte[], V>> {
+    BytesBLinkTreeNode node;
+    int index = 0;
+
+    EntryIterator(final BytesBLinkTreeNode node) {
+      this.node = node;
+      skipEmpty();
+    }
+
+    @Override
+    public boolean hasNext() {
+      return node != null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Map.Entry<byte[], V> next() {
+      if (node == null) {
+        throw new NoSuchElementException("End of iterator.");
+      }
+
+      final var entry = new AbstractMap.SimpleImmutableEntry<>(node.keys[index], (V) node.values[index]);
+      ++index;
+      skipEmpty();
+
+      return entry;
+    }
+
+    private void skipEmpty() {
+      while (node != null && index == node.size) {
+        index = 0;
+        node = node.right;
+      }
+    }
+  }
+}
@@ -0,0 +1,340 @@
+package com.alistairpayn.blinktree;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+// each key is kept beside its first eight bytes as a big-endian long, so most comparisons are one unsigned long compare
+class BytesBLinkTreeNode {
+  static final VarHandle BIG_ENDIAN_LONG = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN);
+
+  final byte[][] keys;
+  final long[] prefixes;
+  final Object[] values;
+  final boolean isInternal;
+  final int minSize;
+  BytesBLinkTreeNode left;
+  BytesBLinkTreeNode right;
+  int size;
+
+  protected BytesBLinkTreeNode(final int arraySize, final boolean isInternal, final int minSize) {
+    this.keys = new byte[arraySize][];
+    this.prefixes = new long[arraySize];
+    this.values = new Object[arraySize];
+    this.size = 0;
+    this.isInternal = isInternal;
+    this.minSize = minSize;
+  }
+
+  // orders the same way as the keys whenever two prefixes differ, since padding only ever extends a key with zeros
+  static long prefix(final byte[] key) {
+    if (key.length >= Long.BYTES) {
+      return (long) BIG_ENDIAN_LONG.get(key, 0);
+    }
+    long prefix = 0;
+    for (int i = 0; i < Long.BYTES; ++i) {
+      prefix = prefix << 8 | (i < key.length ? key[i] & 0xff : 0);
+    }
+    return prefix;
+  }
+
+  // the shortest key separating last from first, first cut one byte past where it departs from last
+  static byte[] separatorBetween(final byte[] last, final byte[] first) {
+    final var mismatch = Arrays.mismatch(last, first); // last is below first so they differ within first
+    return mismatch + 1 < first.length ? Arrays.copyOf(first, mismatch + 1) : first;
+  }
+
+  public int getMinSize() {
+    return minSize;
+  }
+
+  public int getMaxSize() {
+    return values.length;
+  }
+
+  public void setKeyAt(final int index, final byte[] key) {
+    keys[index] = key;
+    prefixes[index] = prefix(key);
+  }
+
+  public BytesBLinkTreeNode getChildAt(final int index) {
+    return (BytesBLinkTreeNode) values[index];
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  public boolean isOvercapacity() {
+    return size >= getMaxSize();
+  }
+
+  public boolean isUnderCapacity() {
+    return size < getMinSize();
+  }
+
+  public int compareAt(final int index, final byte[] key, final long prefix) {
+    final var cmp = Long.compareUnsigned(prefixes[index], prefix);
+    return cmp != 0 ? cmp : Arrays.compareUnsigned(keys[index], key);
+  }
+
+  public boolean isKeyAt(final int index, final byte[] key, final long prefix) {
+    return index < size && prefixes[index] == prefix && Arrays.equals(keys[index], key);
+  }
+
+  public int search(final byte[] key, final long prefix) {
+    int low = 0;
+    int high = (isInternal ? size - 1 : size) - 1;
+    while (low <= high) {
+      final int mid = (low + high) >>> 1;
+      final int cmp = compareAt(mid, key, prefix);
+      if (cmp < 0) {
+        low = mid + 1;
+      } else if (cmp > 0) {
+        high = mid - 1;
+      } else {
+        return isInternal ? mid + 1 : mid;
+      }
+    }
+    return low;
+  }
+
+  public Object get(final byte[] key, final long prefix) {
+    var node = this;
+    while (node.isInternal) {
+      node = node.getChildAt(node.search(key, prefix));
+    }
+    final var index = node.search(key, prefix);
+    return node.isKeyAt(index, key, prefix) ? node.values[index] : null;
+  }
+
+  public boolean putInternal(final byte[] key, final long prefix, final Object value) {
+    final var index = search(key, prefix);
+    final var child = getChildAt(index);
+    final var insertedKey = child.isInternal
+        ? child.putInternal(key, prefix, value)
+        : child.putLeaf(key, prefix, value);
+
+    if (!child.isOvercapacity()) { // the child is not full return
+      return insertedKey;
+    }
+
+    if (child.left != null && index > 0) { // redistributed the child with the child's left sibling
+      if (child.left.tryTakeFromRightSibling(this, index - 1)) {
+        return insertedKey;
+      }
+    }
+
+    if (child.right != null && index < size - 1) { // redistributed the child with the child's right sibling
+      if (child.right.tryTakeFromLeftSibling(this, index)) {
+        return insertedKey;
+      }
+    }
+
+    final var separator = child.split(); // when no redistribution is possible split the child
+    insert(separator, prefix(separator), child.right, index + 1); // +1 because the split node holds greater keys
+
+    return insertedKey;
+  }
+
+  public boolean putLeaf(final byte[] key, final long prefix, final Object value) {
+    final var index = search(key, prefix);
+    if (isKeyAt(index, key, prefix)) { // overwrite value of an existing key
+      values[index] = value;
+      return false;
+    } else { // insert a new key value pair
+      insert(key, prefix, value, index);
+      return true;
+    }
+  }
+
+  public void insert(final byte[] key, final long prefix, final Object value, final int index) {
+    final var keyIndex = isInternal ? index - 1 : index; // an internal key separates the child at index - 1
+    System.arraycopy(keys, keyIndex, keys, keyIndex + 1, size - index);
+    System.arraycopy(prefixes, keyIndex, prefixes, keyIndex + 1, size - index);
+    keys[keyIndex] = key;
+    prefixes[keyIndex] = prefix;
+    System.arraycopy(values, index, values, index + 1, size - index);
+    values[index] = value;
+    ++size;
+  }
+
+  public byte[] split() {
+    BytesBLinkTreeNode other = new BytesBLinkTreeNode(values.length, isInternal, minSize);
+
+    other.size = size / 2;
+    size -= other.size;
+
+    System.arraycopy(keys, size, other.keys, 0, other.size);
+    System.arraycopy(prefixes, size, other.prefixes, 0, other.size);
+    System.arraycopy(values, size, other.values, 0, other.size);
+    Arrays.fill(keys, size, size + other.size, null);
+    Arrays.fill(values, size, size + other.size, null);
+
+    other.left = this;
+    other.right = right;
+    if (right != null) {
+      right.left = other;
+    }
+    right = other;
+
+    if (isInternal) {
+      final var separator = keys[size - 1];
+      keys[size - 1] = null;
+      return separator;
+    }
+
+    return separatorBetween(keys[size - 1], other.keys[0]);
+  }
+
+  public boolean removeInternal(final byte[] key, final long prefix) {
+    final var index = search(key, prefix);
+    final var child = getChildAt(index);
+    final var removed = child.isInternal ? child.removeInternal(key, prefix) : child.removeLeaf(key, prefix);
+
+    if (!child.isUnderCapacity()) { // the child is not full return
+      return removed;
+    }
+
+    if (child.left != null && index > 0) { // redistributed the child with the child's left sibling
+      if (child.tryTakeFromLeftSibling(this, index - 1)) {
+        return removed;
+      }
+    }
+
+    if (child.right != null && index < size - 1) { // redistributed the child with the child's right sibling
+      if (child.tryTakeFromRightSibling(this, index)) {
+        return removed;
+      }
+    }
+
+    if (child.left != null && index > 0) { // when no redistribution is possible merge the child with its left sibling
+      if (child.left.merge(keys[index - 1])) {
+        delete(index);
+        return removed;
+      }
+    }
+
+    if (child.right != null && index < size - 1) { // when no redistribution is possible merge the child with its right sibling
+      if (child.merge(keys[index])) {
+        delete(index + 1);
+        return removed;
+      }
+    }
+
+    return removed;
+  }
+
+  public boolean removeLeaf(final byte[] key, final long prefix) {
+    final var index = search(key, prefix);
+    if (isKeyAt(index, key, prefix)) {
+      delete(index);
+      return true;
+    }
+    return false;
+  }
+
+  public void delete(final int index) {
+    final var keyIndex = isInternal ? index - 1 : index; // an internal node drops the key left of the deleted child
+    System.arraycopy(keys, keyIndex + 1, keys, keyIndex, size - index - 1);
+    System.arraycopy(prefixes, keyIndex + 1, prefixes, keyIndex, size - index - 1);
+    keys[size - (isInternal ? 2 : 1)] = null;
+    System.arraycopy(values, index + 1, values, index, size - index - 1);
+    values[size - 1] = null;
+    --size;
+  }
+
+  public boolean merge(final byte[] separator) {
+    if (size + right.size >= getMaxSize()) { // can't merge nodes if resulting node will be overcapacity
+      return false;
+    }
+
+    if (isInternal) {
+      setKeyAt(size - 1, separator);
+    }
+
+    System.arraycopy(right.keys, 0, keys, size, right.size);
+    System.arraycopy(right.prefixes, 0, prefixes, size, right.size);
+    System.arraycopy(right.values, 0, values, size, right.size);
+    Arrays.fill(right.keys, 0, right.size, null);
+    Arrays.fill(right.values, 0, right.size, null);
+
+    size += right.size;
+    right.size = 0;
+
+    right = right.right;
+    if (right != null) {
+      right.left = this;
+    }
+
+    return true;
+  }
+
+  // redistribution reads the separator between the two siblings from the parent and writes the new one back
+  public boolean tryTakeFromRightSibling(final BytesBLinkTreeNode parent, final int separatorIndex) {
+    if (size >= getMaxSize() - 1 || right.size <= right.getMinSize()) {
+      return false;
+    }
+
+    if (isInternal) {
+      keys[size - 1] = parent.keys[separatorIndex];
+      prefixes[size - 1] = parent.prefixes[separatorIndex];
+    }
+
+    int delta = right.size - (size + right.size) / 2;
+    System.arraycopy(right.keys, 0, keys, size, delta);
+    System.arraycopy(right.prefixes, 0, prefixes, size, delta);
+    System.arraycopy(right.values, 0, values, size, delta);
+    System.arraycopy(right.keys, delta, right.keys, 0, right.size - delta);
+    System.arraycopy(right.prefixes, delta, right.prefixes, 0, right.size - delta);
+    System.arraycopy(right.values, delta, right.values, 0, right.size - delta);
+    Arrays.fill(right.keys, right.size - delta, right.size, null);
+    Arrays.fill(right.values, right.size - delta, right.size, null);
+
+    size += delta;
+    right.size -= delta;
+
+    if (isInternal) {
+      parent.keys[separatorIndex] = keys[size - 1];
+      parent.prefixes[separatorIndex] = prefixes[size - 1];
+      keys[size - 1] = null;
+    } else {
+      parent.setKeyAt(separatorIndex, separatorBetween(keys[size - 1], right.keys[0]));
+    }
+    return true;
+  }
+
+  public boolean tryTakeFromLeftSibling(final BytesBLinkTreeNode parent, final int separatorIndex) {
+    if (size >= getMaxSize() - 1 || left.size <= left.getMinSize()) {
+      return false;
+    }
+
+    if (isInternal) {
+      left.keys[left.size - 1] = parent.keys[separatorIndex];
+      left.prefixes[left.size - 1] = parent.prefixes[separatorIndex];
+    }
+
+    int delta = left.size - (size + left.size) / 2;
+    System.arraycopy(keys, 0, keys, delta, size);
+    System.arraycopy(prefixes, 0, prefixes, delta, size);
+    System.arraycopy(values, 0, values, delta, size);
+    System.arraycopy(left.keys, left.size - delta, keys, 0, delta);
+    System.arraycopy(left.prefixes, left.size - delta, prefixes, 0, delta);
+    System.arraycopy(left.values, left.size - delta, values, 0, delta);
+    Arrays.fill(left.keys, left.size - delta, left.size, null);
+    Arrays.fill(left.values, left.size - delta, left.size, null);
+
+    size += delta;
+    left.size -= delta;
+
+    if (isInternal) {
+      parent.keys[separatorIndex] = left.keys[left.size - 1];
+      parent.prefixes[separatorIndex] = left.prefixes[left.size - 1];
+      left.keys[left.size - 1] = null;
+    } else {
+      parent.setKeyAt(separatorIndex, separatorBetween(left.keys[left.size - 1], keys[0]));
+    }
+    return true;
+  }
+}
@@ -0,0 +1,69 @@
+package com.alistairpayn.blinktree;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+// encode must write exactly size(value) bytes and decode must consume the same bytes
+public interface Codec<T> {
+  int size(T value);
+
+  void encode(T value, ByteBuffer buffer);
+
+  T decode(ByteBuffer buffer);
+
+  Codec<Long> LONG = new Codec<>() {
+    @Override
+    public int size(final Long value) {
+      return Long.BYTES;
+    }
+
+    @Override
+    public void encode(final Long value, final ByteBuffer buffer) {
+      buffer.putLong(value);
+    }
+
+    @Override
+    public Long decode(final ByteBuffer buffer) {
+      return buffer.getLong();
+    }
+  };
+
+  Codec<Integer> INTEGER = new Codec<>() {
+    @Override
+    public int size(final Integer value) {
+      return Integer.BYTES;
+    }
+
+    @Override
+    public void encode(final Integer value, final ByteBuffer buffer) {
+      buffer.putInt(value);
+    }
+
+    @Override
+    public Integer decode(final ByteBuffer buffer) {
+      return buffer.getInt();
+    }
+  };
+
+  // UTF-8 bytes behind an int length
+  Codec<String> STRING = new Codec<>() {
+    @Override
+    public int size(final String value) {
+      return Integer.BYTES + value.getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    @Override
+    public void encode(final String value, final ByteBuffer buffer) {
+      final var bytes = value.getBytes(StandardCharsets.UTF_8);
+      buffer.putInt(bytes.length);
+      buffer.put(bytes);
+    }
+
+    @Override
+    public String decode(final ByteBuffer buffer) {
+      final var bytes = new byte[buffer.getInt()];
+      buffer.get(bytes);
+      return new String(bytes, StandardCharsets.UTF_8);
+    }
+  };
+}
@@ -0,0 +1,187 @@
+package com.alistairpayn.blinktree;
+
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.LongAdder;
+
+public class ConcurrentBLinkTree<K extends Comparable<K>, V> {
+  final int maxSize;
+  final LongAdder size = new LongAdder();
+
+  volatile ConcurrentBLinkTreeNode<K> root;
+
+  public ConcurrentBLinkTree(final int maxSize) {
+    if (maxSize < 4) {
+      throw new RuntimeException("BTree node size must be greater than 4");
+    }
+    this.maxSize = maxSize;
+    this.root = new ConcurrentBLinkTreeNode<>(maxSize, false, 0);
+  }
+
+  public boolean isEmpty() {
+    return size() == 0;
+  }
+
+  public long size() {
+    return size.sum();
+  }
+
+  @SuppressWarnings("unchecked")
+  public V get(final K key) {
+    var node = root;
+    while (node.isInternal) {
+      node = node.next(key);
+    }
+    return (V) node.get(key);
+  }
+
+  public void put(final K key, final V value) {
+    final var path = new ArrayDeque<ConcurrentBLinkTreeNode<K>>();
+    var node = descend(key, path).lockCovering(key);
+    try { // node is always the one latched node, so a put that throws still releases it
+      if (node.putLeaf(key, value)) {
+        size.increment();
+      }
+
+      while (node.isOvercapacity()) { // split and insert the separator into the parent, moving up while parents fill
+        final var promoted = node.split();
+        final var parent = path.isEmpty() ? growRoot(node, promoted) : path.pop();
+        if (parent == null) {
+          return;
+        }
+
+        final var locked = parent.lockCovering(promoted.key);
+        node.unlock();
+        node = locked;
+        node.putInternal(promoted.key, cast(promoted.value));
+      }
+    } finally {
+      node.unlock();
+    }
+  }
+
+  public boolean remove(final K key) {
+    // nodes are never merged, Lehman-Yao leaves underfull nodes in place rather than latch siblings and parents
+    final var node = descend(key, null).lockCovering(key);
+    try {
+      if (node.removeLeaf(key)) {
+        size.decrement();
+        return true;
+      }
+      return false;
+    } finally {
+      node.unlock();
+    }
+  }
+
+  public MappingIterator iterator() {
+    var node = root;
+    while (node.isInternal) {
+      node = cast(node.values[0]);
+    }
+    return new MappingIterator(node);
+  }
+
+  private ConcurrentBLinkTreeNode<K> descend(final K key, final ArrayDeque<ConcurrentBLinkTreeNode<K>> path) {
+    var node = root;
+    while (node.isInternal) {
+      final var next = node.next(key);
+      if (path != null && next.level < node.level) {
+        path.push(node);
+      }
+      node = next;
+    }
+    return node;
+  }
+
+  private synchronized ConcurrentBLinkTreeNode<K> growRoot(final ConcurrentBLinkTreeNode<K> node, final Mapping<K> promoted) {
+    if (root == node) { // when the root is full grow the tree by creating a new root
+      final var newRoot = new ConcurrentBLinkTreeNode<K>(maxSize, true, node.level + 1);
+      newRoot.keys[0] = promoted.key;
+      newRoot.values[0] = node;
+      newRoot.values[1] = promoted.value;
+      newRoot.size = 2;
+      root = newRoot;
+      notifyAll();
+      return null;
+    }
+
+    // the node was split off the root by a writer that has not installed the new root yet
+    var interrupted = false;
+    while (root.level <= node.level) {
+      try {
+        wait();
+      } catch (InterruptedException e) {
+        interrupted = true;
+      }
+    }
+    if (interrupted) {
+      Thread.currentThread().interrupt();
+    }
+
+    // another writer grew the tree after this path was read, find the parent level from the new root
+    var parent = root;
+    while (parent.level > node.level + 1) {
+      parent = parent.next(promoted.key);
+    }
+    return parent;
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <K extends Comparable<K>> ConcurrentBLinkTreeNode<K> cast(final Object node) {
+    return (ConcurrentBLinkTreeNode<K>) node;
+  }
+
+  public class MappingIterator implements Iterator<Mapping<K>> {
+    ConcurrentBLinkTreeNode<K> node;
+    final Object[] keys = new Object[maxSize];
+    final Object[] values = new Object[maxSize];
+    int size = 0;
+    int index = 0;
+
+    MappingIterator(final ConcurrentBLinkTreeNode<K> node) {
+      this.node = node;
+      skipEmpty();
+    }
+
+    @Override
+    public boolean hasNext() {
+      return index < size;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public Mapping<K> next() {
+      if (index == size) {
+        throw new NoSuchElementException("End of iterator.");
+      }
+
+      final var mapping = new Mapping<>((K) keys[index], values[index]);
+      ++index;
+      skipEmpty();
+
+      return mapping;
+    }
+
+    private void skipEmpty() { // leaves are never merged so the chain can contain empty nodes
+      while (index == size && node != null) {
+        index = 0;
+        node = copyLeaf(node);
+      }
+    }
+
+    private ConcurrentBLinkTreeNode<K> copyLeaf(final ConcurrentBLinkTreeNode<K> leaf) {
+      while (true) { // buffer one leaf at a time so the iterator never holds a node latch
+        final var version = leaf.readVersion();
+        size = Math.min(leaf.size, keys.length);
+        System.arraycopy(leaf.keys, 0, keys, 0, size);
+        System.arraycopy(leaf.values, 0, values, 0, size);
+        final var right = leaf.right;
+        if (leaf.validate(version)) {
+          return right;
+        }
+      }
+    }
+  }
+}
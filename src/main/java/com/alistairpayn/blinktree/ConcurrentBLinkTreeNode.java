@@ -0,0 +1,232 @@
+package com.alistairpayn.blinktree;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+
+class ConcurrentBLinkTreeNode<K extends Comparable<K>> {
+  private static final VarHandle VERSION;
+  private static final long LOCKED = 1L;
+
+  static {
+    try {
+      VERSION = MethodHandles.lookup().findVarHandle(ConcurrentBLinkTreeNode.class, "version", long.class);
+    } catch (ReflectiveOperationException e) {
+      throw new ExceptionInInitializerError(e);
+    }
+  }
+
+  final Object[] keys;
+  final Object[] values;
+  final boolean isInternal;
+  final int level;
+  int size;
+  K highKey;
+  ConcurrentBLinkTreeNode<K> right;
+
+  private volatile long version; // seqlock, odd while a writer holds the node, readers retry when it changed
+
+  ConcurrentBLinkTreeNode(final int maxSize, final boolean isInternal, final int level) {
+    this.keys = new Object[maxSize];
+    this.values = new Object[maxSize];
+    this.isInternal = isInternal;
+    this.level = level;
+  }
+
+  public long readVersion() {
+    for (int spins = 0; ; ++spins) {
+      final var version = this.version;
+      if ((version & LOCKED) == 0) {
+        return version;
+      }
+      backoff(spins);
+    }
+  }
+
+  public boolean validate(final long version) {
+    VarHandle.acquireFence();
+    return this.version == version;
+  }
+
+  public void lock() {
+    for (int spins = 0; ; ++spins) {
+      final var version = this.version;
+      if ((version & LOCKED) == 0 && VERSION.compareAndSet(this, version, version + LOCKED)) {
+        return;
+      }
+      backoff(spins);
+    }
+  }
+
+  public void unlock() {
+    VERSION.setRelease(this, version + LOCKED);
+  }
+
+  private static void backoff(final int spins) {
+    if (spins < 64) {
+      Thread.onSpinWait();
+    } else {
+      Thread.yield();
+    }
+  }
+
+  public int getMaxSize() {
+    return keys.length;
+  }
+
+  public boolean covers(final K key) {
+    final var highKey = this.highKey;
+    return highKey == null || key.compareTo(highKey) < 0;
+  }
+
+  @SuppressWarnings("unchecked")
+  public K getKeyAt(final int index) {
+    return (K) keys[index];
+  }
+
+  public int search(final K key) {
+    int end = size;
+    if (isInternal) {
+      --end;
+    }
+    int index = Arrays.binarySearch(keys, 0, end, key);
+    if (index < 0) {
+      return -(index + 1);
+    }
+
+    if (isInternal) {
+      return index + 1;
+    }
+
+    return index;
+  }
+
+  @SuppressWarnings("unchecked")
+  public ConcurrentBLinkTreeNode<K> next(final K key) {
+    while (true) {
+      final var version = readVersion();
+      try {
+        final var next = covers(key) // the node split after the parent was read, follow the right link
+            ? (ConcurrentBLinkTreeNode<K>) values[search(key)]
+            : right;
+        if (validate(version)) {
+          return next;
+        }
+      } catch (RuntimeException e) { // a torn read can index past the entries a writer is shifting
+        if (validate(version)) {
+          throw e;
+        }
+      }
+    }
+  }
+
+  public Object get(final K key) {
+    var node = this;
+    while (true) {
+      final var version = node.readVersion();
+      try {
+        if (!node.covers(key)) {
+          final var right = node.right;
+          if (node.validate(version)) {
+            node = right;
+          }
+          continue;
+        }
+        final var index = node.search(key);
+        final var value = index < node.size && key.equals(node.keys[index]) ? node.values[index] : null;
+        if (node.validate(version)) {
+          return value;
+        }
+      } catch (RuntimeException e) {
+        if (node.validate(version)) {
+          throw e;
+        }
+      }
+    }
+  }
+
+  public ConcurrentBLinkTreeNode<K> lockCovering(final K key) {
+    var node = this;
+    node.lock();
+    try {
+      while (!node.covers(key)) {
+        final var right = node.right;
+        right.lock();
+        node.unlock();
+        node = right;
+      }
+      return node;
+    } catch (RuntimeException e) { // a key that can't be compared leaves no node latched
+      node.unlock();
+      throw e;
+    }
+  }
+
+  public boolean isOvercapacity() {
+    return size >= getMaxSize();
+  }
+
+  public boolean putLeaf(final K key, final Object value) {
+    final var index = search(key);
+    if (index < size && keys[index].equals(key)) { // overwrite value of an existing key
+      values[index] = value;
+      return false;
+    }
+    System.arraycopy(keys, index, keys, index + 1, size - index);
+    System.arraycopy(values, index, values, index + 1, size - index);
+    keys[index] = key;
+    values[index] = value;
+    ++size;
+    return true;
+  }
+
+  public void putInternal(final K separator, final ConcurrentBLinkTreeNode<K> child) {
+    final var index = search(separator);
+    System.arraycopy(keys, index, keys, index + 1, size - index - 1);
+    System.arraycopy(values, index + 1, values, index + 2, size - index - 1);
+    keys[index] = separator;
+    values[index + 1] = child;
+    ++size;
+  }
+
+  public boolean removeLeaf(final K key) {
+    final var index = search(key);
+    if (index >= size || !keys[index].equals(key)) {
+      return false;
+    }
+    System.arraycopy(keys, index + 1, keys, index, size - index - 1);
+    System.arraycopy(values, index + 1, values, index, size - index - 1);
+    --size;
+    keys[size] = null;
+    values[size] = null;
+    return true;
+  }
+
+  public Mapping<K> split() {
+    final var other = new ConcurrentBLinkTreeNode<K>(getMaxSize(), isInternal, level);
+
+    other.size = size / 2;
+    size -= other.size;
+
+    System.arraycopy(keys, size, other.keys, 0, other.size);
+    System.arraycopy(values, size, other.values, 0, other.size);
+    Arrays.fill(keys, size, size + other.size, null);
+    Arrays.fill(values, size, size + other.size, null);
+
+    final K separator;
+    if (isInternal) {
+      separator = getKeyAt(size - 1);
+      keys[size - 1] = null;
+    } else {
+      separator = other.getKeyAt(0);
+    }
+
+    // the new right node is reachable only through this node, whose version is odd until the split is complete
+    other.highKey = highKey;
+    other.right = right;
+    highKey = separator;
+    right = other;
+
+    return new Mapping<>(separator, other);
+  }
+}
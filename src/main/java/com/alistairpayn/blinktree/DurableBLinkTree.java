@@ -0,0 +1,123 @@
+package com.alistairpayn.blinktree;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+// a BLinkTree whose puts and removes are logged and forced before they return, writers share each fsync
+// the directory holds checkpoint, a snapshot of the tree, and wal, the changes made since
+public class DurableBLinkTree<K extends Comparable<K>, V> implements Closeable {
+  static final String CHECKPOINT = "checkpoint";
+  static final String LOG = "wal";
+
+  final Path directory;
+  final Codec<K> keyCodec;
+  final Codec<V> valueCodec;
+  final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+  final BLinkTree<K, V> tree;
+  final WriteAheadLog<K, V> log;
+
+  public DurableBLinkTree(final Path directory, final int maxSize, final Codec<K> keyCodec,
+                          final Codec<V> valueCodec) {
+    this.directory = directory;
+    this.keyCodec = keyCodec;
+    this.valueCodec = valueCodec;
+    this.tree = new BLinkTree<>(maxSize);
+    try {
+      Files.createDirectories(directory);
+      readCheckpoint();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    this.log = new WriteAheadLog<>(directory.resolve(LOG), keyCodec, valueCodec);
+    log.replay(tree::put, tree::remove);
+  }
+
+  void readCheckpoint() throws IOException {
+    final var path = directory.resolve(CHECKPOINT);
+    if (Files.exists(path)) {
+      try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+        tree.readSnapshot(channel, keyCodec, valueCodec);
+      }
+    }
+  }
+
+  public int size() {
+    lock.readLock().lock();
+    try {
+      return tree.size;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  public V get(final K key) {
+    lock.readLock().lock();
+    try {
+      return tree.get(key);
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  public void put(final K key, final V value) {
+    final long sequence;
+    lock.writeLock().lock();
+    try {
+      sequence = log.appendPut(key, value);
+      tree.put(key, value);
+    } finally {
+      lock.writeLock().unlock();
+    }
+    log.sync(sequence);
+  }
+
+  public boolean remove(final K key) {
+    final long sequence;
+    lock.writeLock().lock();
+    try {
+      if (!tree.remove(key)) {
+        return false;
+      }
+      sequence = log.appendRemove(key);
+    } finally {
+      lock.writeLock().unlock();
+    }
+    log.sync(sequence);
+    return true;
+  }
+
+  // writes a new checkpoint beside the old one, renames it into place, then empties the log
+  public void checkpoint() {
+    lock.writeLock().lock();
+    try {
+      final var temporary = directory.resolve(CHECKPOINT + ".tmp");
+      try (var channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+          StandardOpenOption.TRUNCATE_EXISTING)) {
+        tree.writeSnapshot(channel, keyCodec, valueCodec);
+        channel.force(true);
+      }
+      Files.move(temporary, directory.resolve(CHECKPOINT), StandardCopyOption.ATOMIC_MOVE,
+          StandardCopyOption.REPLACE_EXISTING);
+      try (var parent = FileChannel.open(directory, StandardOpenOption.READ)) {
+        parent.force(true); // the rename must be durable before the log it makes redundant is emptied
+      }
+      log.reset();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  @Override
+  public void close() {
+    log.close();
+  }
+}
@@ -1,56 +1,61 @@
+package com.alistairpayn.blinktree;
+
 import java.util.Iterator;
 import java.util.NoSuchElementException;
 
-public class BLinkTree<K extends Comparable<K>, V> {
+public class IntBLinkTree<V> {
   final int maxSize;
   final int minSize;
   int size = 0;
 
-  BLinkTreeNode<K> root;
+  IntBLinkTreeNode root;
 
-  public BLinkTree(final int maxSize) {
+  public IntBLinkTree(final int maxSize) {
     this(maxSize / 2, maxSize);
   }
 
-  public BLinkTree(final int minSize, final int maxSize) {
+  public IntBLinkTree(final int minSize, final int maxSize) {
     if (maxSize < 4) {
       throw new RuntimeException("BTree node size must be greater than 4");
     }
+    if (minSize < 1 || minSize > maxSize / 2) {
+      throw new RuntimeException("Minimum size must be in [1, " + maxSize / 2 + "], found " + minSize);
+    }
     this.minSize = minSize;
     this.maxSize = maxSize;
-    this.root = new BLinkTreeNode<>(maxSize, false);
+    this.root = new IntBLinkTreeNode(maxSize, false, minSize);
   }
 
   public boolean isEmpty() {
-    return root == null;
+    return size == 0;
   }
 
   @SuppressWarnings("unchecked")
-  public V get(final K key) {
+  public V get(final int key) {
     return (V) root.get(key);
   }
 
-  public void put(final K key, final V value) {
+  public void put(final int key, final V value) {
     if (root.isInternal ? root.putInternal(key, value) : root.putLeaf(key, value)) {
       ++size;
     }
 
     if (root.isOvercapacity()) { // when the root is full grow the tree by creating a new root
-      final var promoted = root.split();
-      final var node = new BLinkTreeNode<K>(maxSize, true);
-      node.setMappingAt(0, new Mapping<>(promoted.key, root));
-      node.setMappingAt(1, new Mapping<>(null, promoted.value));
+      final var separator = root.split();
+      final var node = new IntBLinkTreeNode(maxSize, true, Math.max(2, minSize)); // an internal node keeps two children
+      node.keys[0] = separator;
+      node.values[0] = root;
+      node.values[1] = root.right;
       node.size = 2;
       root = node;
     }
   }
 
-  @SuppressWarnings("unchecked")
-  public boolean remove(final K key) {
+  public boolean remove(final int key) {
     if (root.isInternal ? root.removeInternal(key) : root.removeLeaf(key)) {
       --size;
       if (root.size == 1 && root.isInternal) {
-        root = (BLinkTreeNode<K>) root.getMappingAt(0).value;
+        root = root.getChildAt(0);
       }
       return true;
     }
@@ -58,20 +63,19 @@ public class BLinkTree<K extends Comparable<K>, V> {
     return false;
   }
 
-  @SuppressWarnings("unchecked")
   public MappingIterator iterator() {
-    BLinkTreeNode<K> node = root;
+    IntBLinkTreeNode node = root;
     while (node != null && node.isInternal) {
-      node = (BLinkTreeNode<K>) node.getMappingAt(0).value;
+      node = node.getChildAt(0);
     }
     return new MappingIterator(node);
   }
 
-  public class MappingIterator implements Iterator<Mapping<K>> {
-    BLinkTreeNode<K> node;
+  public class MappingIterator implements Iterator<Mapping<Integer>> {
+    IntBLinkTreeNode node;
     int index = 0;
 
-    MappingIterator(BLinkTreeNode<K> node) {
+    MappingIterator(IntBLinkTreeNode node) {
       this.node = node;
     }
 
@@ -81,12 +85,12 @@ public class BLinkTree<K extends Comparable<K>, V> {
     }
 
     @Override
-    public Mapping<K> next() {
+    public Mapping<Integer> next() {
       if (node == null || index == node.size) {
         throw new NoSuchElementException("End of iterator.");
       }
 
-      final var mapping = node.getMappingAt(index++);
+      final var mapping = new Mapping<Integer>(node.keys[index], node.values[index++]);
       if (index == node.size) {
         index = 0;
         node = node.right;
@@ -0,0 +1,37 @@
+package com.alistairpayn.blinktree;
+
+import java.util.Arrays;
+
+// counts the keys in [0, end) below the probe, or at or below it when inclusive, with VectorKeySearch only when
+// jdk.incubator.vector is in the boot layer and -Dblinktree.scalarSearch is not set
+final class KeySearch {
+  static final boolean VECTORIZED = ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent()
+      && !Boolean.getBoolean("blinktree.scalarSearch");
+
+  private KeySearch() {
+  }
+
+  static int search(final int[] keys, final int end, final int key, final boolean inclusive) {
+    return VECTORIZED ? VectorKeySearch.search(keys, end, key, inclusive) : binarySearch(keys, end, key, inclusive);
+  }
+
+  static int search(final long[] keys, final int end, final long key, final boolean inclusive) {
+    return VECTORIZED ? VectorKeySearch.search(keys, end, key, inclusive) : binarySearch(keys, end, key, inclusive);
+  }
+
+  static int binarySearch(final int[] keys, final int end, final int key, final boolean inclusive) {
+    final int index = Arrays.binarySearch(keys, 0, end, key);
+    if (index < 0) {
+      return -(index + 1);
+    }
+    return inclusive ? index + 1 : index;
+  }
+
+  static int binarySearch(final long[] keys, final int end, final long key, final boolean inclusive) {
+    final int index = Arrays.binarySearch(keys, 0, end, key);
+    if (index < 0) {
+      return -(index + 1);
+    }
+    return inclusive ? index + 1 : index;
+  }
+}
@@ -0,0 +1,102 @@
+package com.alistairpayn.blinktree;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+public class LongBLinkTree<V> {
+  final int maxSize;
+  final int minSize;
+  int size = 0;
+
+  LongBLinkTreeNode root;
+
+  public LongBLinkTree(final int maxSize) {
+    this(maxSize / 2, maxSize);
+  }
+
+  public LongBLinkTree(final int minSize, final int maxSize) {
+    if (maxSize < 4) {
+      throw new RuntimeException("BTree node size must be greater than 4");
+    }
+    if (minSize < 1 || minSize > maxSize / 2) {
+      throw new RuntimeException("Minimum size must be in [1, " + maxSize / 2 + "], found " + minSize);
+    }
+    this.minSize = minSize;
+    this.maxSize = maxSize;
+    this.root = new LongBLinkTreeNode(maxSize, false, minSize);
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  @SuppressWarnings("unchecked")
+  public V get(final long key) {
+    return (V) root.get(key);
+  }
+
+  public void put(final long key, final V value) {
+    if (root.isInternal ? root.putInternal(key, value) : root.putLeaf(key, value)) {
+      ++size;
+    }
+
+    if (root.isOvercapacity()) { // when the root is full grow the tree by creating a new root
+      final var separator = root.split();
+      final var node = new LongBLinkTreeNode(maxSize, true, Math.max(2, minSize)); // an internal node keeps two children
+      node.keys[0] = separator;
+      node.values[0] = root;
+      node.values[1] = root.right;
+      node.size = 2;
+      root = node;
+    }
+  }
+
+  public boolean remove(final long key) {
+    if (root.isInternal ? root.removeInternal(key) : root.removeLeaf(key)) {
+      --size;
+      if (root.size == 1 && root.isInternal) {
+        root = root.getChildAt(0);
+      }
+      return true;
+    }
+
+    return false;
+  }
+
+  public MappingIterator iterator() {
+    LongBLinkTreeNode node = root;
+    while (node != null && node.isInternal) {
+      node = node.getChildAt(0);
+    }
+    return new MappingIterator(node);
+  }
+
+  public class MappingIterator implements Iterator<Mapping<Long>> {
+    LongBLinkTreeNode node;
+    int index = 0;
+
+    MappingIterator(LongBLinkTreeNode node) {
+      this.node = node;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return node != null && index < node.size;
+    }
+
+    @Override
+    public Mapping<Long> next() {
+      if (node == null || index == node.size) {
+        throw new NoSuchElementException("End of iterator.");
+      }
+
+      final var mapping = new Mapping<Long>(node.keys[index], node.values[index++]);
+      if (index == node.size) {
+        index = 0;
+        node = node.right;
+      }
+
+      return mapping;
+    }
+  }
+}
@@ -0,0 +1,265 @@
+package com.alistairpayn.blinktree;
+
+import java.util.Arrays;
+
+class LongBLinkTreeNode {
+  final long[] keys;
+  final Object[] values;
+  final boolean isInternal;
+  final int minSize;
+  LongBLinkTreeNode left;
+  LongBLinkTreeNode right;
+  int size;
+
+  protected LongBLinkTreeNode(final int arraySize, final boolean isInternal, final int minSize) {
+    this.keys = new long[arraySize];
+    this.values = new Object[arraySize];
+    this.size = 0;
+    this.isInternal = isInternal;
+    this.minSize = minSize;
+  }
+
+  public int getMinSize() {
+    return minSize;
+  }
+
+  public int getMaxSize() {
+    return values.length;
+  }
+
+  public LongBLinkTreeNode getChildAt(final int index) {
+    return (LongBLinkTreeNode) values[index];
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  public boolean isOvercapacity() {
+    return size >= getMaxSize();
+  }
+
+  public boolean isUnderCapacity() {
+    return size < getMinSize();
+  }
+
+  public int search(final long key) { // internal nodes send a key equal to a separator right, past it
+    return KeySearch.search(keys, isInternal ? size - 1 : size, key, isInternal);
+  }
+
+  public Object get(final long key) {
+    var node = this;
+    while (node.isInternal) {
+      node = node.getChildAt(node.search(key));
+    }
+    final var index = node.search(key);
+    if (index >= node.size || node.keys[index] != key) {
+      return null;
+    }
+    return node.values[index];
+  }
+
+  public boolean putInternal(final long key, final Object value) {
+    final var index = search(key);
+    final var child = getChildAt(index);
+    final var insertedKey = child.isInternal ? child.putInternal(key, value) : child.putLeaf(key, value);
+
+    if (!child.isOvercapacity()) { // the child is not full return
+      return insertedKey;
+    }
+
+    if (child.left != null && index > 0) { // redistributed the child with the child's left sibling
+      if (child.left.tryTakeFromRightSibling(this, index - 1)) {
+        return insertedKey;
+      }
+    }
+
+    if (child.right != null && index < size - 1) { // redistributed the child with the child's right sibling
+      if (child.right.tryTakeFromLeftSibling(this, index)) {
+        return insertedKey;
+      }
+    }
+
+    final var separator = child.split(); // when no redistribution is possible split the child
+    insert(separator, child.right, index + 1); // +1 because the node resulting from the split is greater keys
+
+    return insertedKey;
+  }
+
+  public boolean putLeaf(final long key, final Object value) {
+    final var index = search(key);
+    if (index < size && keys[index] == key) { // overwrite value of an existing key
+      values[index] = value;
+      return false;
+    } else { // insert a new key value pair
+      insert(key, value, index);
+      return true;
+    }
+  }
+
+  public void insert(final long key, final Object value, final int index) {
+    if (isInternal) { // the key separates the child at index - 1 from the inserted child
+      System.arraycopy(keys, index - 1, keys, index, size - index);
+      keys[index - 1] = key;
+    } else {
+      System.arraycopy(keys, index, keys, index + 1, size - index);
+      keys[index] = key;
+    }
+    System.arraycopy(values, index, values, index + 1, size - index);
+    values[index] = value;
+    ++size;
+  }
+
+  public long split() {
+    LongBLinkTreeNode other = new LongBLinkTreeNode(values.length, isInternal, minSize);
+
+    other.size = size / 2;
+    size -= other.size;
+
+    System.arraycopy(keys, size, other.keys, 0, other.size);
+    System.arraycopy(values, size, other.values, 0, other.size);
+    Arrays.fill(values, size, size + other.size, null);
+
+    other.left = this;
+    other.right = right;
+    if (right != null) {
+      right.left = other;
+    }
+    right = other;
+
+    if (isInternal) {
+      return keys[size - 1];
+    }
+
+    return other.keys[0];
+  }
+
+  public boolean removeInternal(final long key) {
+    final var index = search(key);
+    final var child = getChildAt(index);
+    final var removed = child.isInternal ? child.removeInternal(key) : child.removeLeaf(key);
+
+    if (!child.isUnderCapacity()) { // the child is not full return
+      return removed;
+    }
+
+    if (child.left != null && index > 0) { // redistributed the child with the child's left sibling
+      if (child.tryTakeFromLeftSibling(this, index - 1)) {
+        return removed;
+      }
+    }
+
+    if (child.right != null && index < size - 1) { // redistributed the child with the child's right sibling
+      if (child.tryTakeFromRightSibling(this, index)) {
+        return removed;
+      }
+    }
+
+    if (child.left != null && index > 0) { // when no redistribution is possible merge the child with its left sibling
+      if (child.left.merge(keys[index - 1])) {
+        delete(index);
+        return removed;
+      }
+    }
+
+    if (child.right != null && index < size - 1) { // when no redistribution is possible merge the child with its right sibling
+      if (child.merge(keys[index])) {
+        delete(index + 1);
+        return removed;
+      }
+    }
+
+    return removed;
+  }
+
+  public boolean removeLeaf(final long key) {
+    final var index = search(key);
+    if (index < size && keys[index] == key) {
+      delete(index);
+      return true;
+    }
+    return false;
+  }
+
+  public void delete(final int index) {
+    if (isInternal) { // drop the key separating the deleted child from its left sibling
+      System.arraycopy(keys, index, keys, index - 1, size - index - 1);
+    } else {
+      System.arraycopy(keys, index + 1, keys, index, size - index - 1);
+    }
+    System.arraycopy(values, index + 1, values, index, size - index - 1);
+    values[size - 1] = null;
+    --size;
+  }
+
+  public boolean merge(final long separator) {
+    if (size + right.size >= getMaxSize()) { // can't merge nodes if resulting node will be overcapacity
+      return false;
+    }
+
+    if (isInternal) {
+      keys[size - 1] = separator;
+    }
+
+    System.arraycopy(right.keys, 0, keys, size, right.size);
+    System.arraycopy(right.values, 0, values, size, right.size);
+    Arrays.fill(right.values, 0, right.size, null);
+
+    size += right.size;
+    right.size = 0;
+
+    right = right.right;
+    if (right != null) {
+      right.left = this;
+    }
+
+    return true;
+  }
+
+  // redistribution reads the separator between the two siblings from the parent and writes the new one back
+  public boolean tryTakeFromRightSibling(final LongBLinkTreeNode parent, final int separatorIndex) {
+    if (size >= getMaxSize() - 1 || right.size <= right.getMinSize()) {
+      return false;
+    }
+
+    if (isInternal) {
+      keys[size - 1] = parent.keys[separatorIndex];
+    }
+
+    int delta = right.size - (size + right.size) / 2;
+    System.arraycopy(right.keys, 0, keys, size, delta);
+    System.arraycopy(right.values, 0, values, size, delta);
+    System.arraycopy(right.keys, delta, right.keys, 0, right.size - delta);
+    System.arraycopy(right.values, delta, right.values, 0, right.size - delta);
+    Arrays.fill(right.values, right.size - delta, right.size, null);
+
+    size += delta;
+    right.size -= delta;
+
+    parent.keys[separatorIndex] = isInternal ? keys[size - 1] : right.keys[0];
+    return true;
+  }
+
+  public boolean tryTakeFromLeftSibling(final LongBLinkTreeNode parent, final int separatorIndex) {
+    if (size >= getMaxSize() - 1 || left.size <= left.getMinSize()) {
+      return false;
+    }
+
+    if (isInternal) {
+      left.keys[left.size - 1] = parent.keys[separatorIndex];
+    }
+
+    int delta = left.size - (size + left.size) / 2;
+    System.arraycopy(keys, 0, keys, delta, size);
+    System.arraycopy(values, 0, values, delta, size);
+    System.arraycopy(left.keys, left.size - delta, keys, 0, delta);
+    System.arraycopy(left.values, left.size - delta, values, 0, delta);
+    Arrays.fill(left.values, left.size - delta, left.size, null);
+
+    size += delta;
+    left.size -= delta;
+
+    parent.keys[separatorIndex] = isInternal ? left.keys[left.size - 1] : keys[0];
+    return true;
+  }
+}
@@ -0,0 +1,155 @@
+package com.alistairpayn.blinktree;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+// pages in a file mapped region by region, page 0 is a header holding the sizes, the free list and the tree's metadata
+public class MappedPageStore implements PageStore {
+  static final long MAGIC = 0x424c696e6b547265L;
+  static final int REGION_BYTES = 1 << 26;
+
+  static final int HEADER_MAGIC = 0;
+  static final int HEADER_PAGE_SIZE = 8;
+  static final int HEADER_PAGE_COUNT = 16;
+  static final int HEADER_FREE_LIST = 24;
+  static final int HEADER_METADATA = 32;
+
+  final FileChannel channel;
+  final int pageSize;
+  final int pagesPerRegion;
+  MappedByteBuffer[] regions = new MappedByteBuffer[0];
+
+  public MappedPageStore(final Path path, final int pageSize) {
+    if (PagedBLinkTreeNode.capacity(pageSize) < 4 || pageSize > REGION_BYTES) {
+      throw new RuntimeException("Page size " + pageSize + " does not fit a node of at least 4 entries");
+    }
+    if (pageSize < HEADER_METADATA + METADATA_SLOTS * Long.BYTES) {
+      throw new RuntimeException("Page size " + pageSize + " does not fit the page file header");
+    }
+
+    this.pageSize = pageSize;
+    this.pagesPerRegion = REGION_BYTES / pageSize;
+    try {
+      this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+          StandardOpenOption.WRITE);
+      final var isNew = channel.size() == 0;
+      map(0);
+
+      final var header = regions[0];
+      if (isNew) {
+        header.putLong(HEADER_MAGIC, MAGIC);
+        header.putInt(HEADER_PAGE_SIZE, pageSize);
+        header.putLong(HEADER_PAGE_COUNT, 1);
+        header.putLong(HEADER_FREE_LIST, NIL);
+      } else if (header.getLong(HEADER_MAGIC) != MAGIC) {
+        throw new RuntimeException(path + " is not a page file");
+      } else if (header.getInt(HEADER_PAGE_SIZE) != pageSize) {
+        throw new RuntimeException(path + " has page size " + header.getInt(HEADER_PAGE_SIZE) + " not " + pageSize);
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  @Override
+  public int pageSize() {
+    return pageSize;
+  }
+
+  @Override
+  public long allocate() {
+    final var header = regions[0];
+    final var freeList = header.getLong(HEADER_FREE_LIST);
+    if (freeList != NIL) {
+      header.putLong(HEADER_FREE_LIST, region(freeList).getLong(offset(freeList)));
+      return freeList;
+    }
+
+    final var page = header.getLong(HEADER_PAGE_COUNT);
+    final var region = (int) (page / pagesPerRegion);
+    if (region == regions.length) {
+      map(region);
+    }
+    header.putLong(HEADER_PAGE_COUNT, page + 1);
+    return page;
+  }
+
+  @Override
+  public void free(final long page) {
+    final var header = regions[0];
+    region(page).putLong(offset(page), header.getLong(HEADER_FREE_LIST));
+    header.putLong(HEADER_FREE_LIST, page);
+  }
+
+  @Override
+  public void pin(final long page, final PagedBLinkTreeNode node) {
+    node.attach(page, region(page), offset(page));
+  }
+
+  @Override
+  public void unpin(final PagedBLinkTreeNode node) {
+  }
+
+  @Override
+  public long getMetadata(final int slot) {
+    return regions[0].getLong(HEADER_METADATA + slot * Long.BYTES);
+  }
+
+  @Override
+  public void setMetadata(final int slot, final long value) {
+    regions[0].putLong(HEADER_METADATA + slot * Long.BYTES, value);
+  }
+
+  public long pageCount() {
+    return regions[0].getLong(HEADER_PAGE_COUNT);
+  }
+
+  @Override
+  public void flush() {
+    for (var region : regions) {
+      region.force();
+    }
+  }
+
+  @Override
+  public void close() {
+    flush();
+    try {
+      channel.close();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    regions = new MappedByteBuffer[0]; // mappings are released once they become unreachable
+  }
+
+  // maps every region up to and including the given one, mapping past the end of the file grows it
+  void map(final int region) {
+    try {
+      final var length = (long) pagesPerRegion * pageSize;
+      final var mapped = Math.max(regions.length, (int) ((channel.size() + length - 1) / length));
+      regions = Arrays.copyOf(regions, Math.max(region + 1, mapped));
+      for (int i = 0; i < regions.length; ++i) {
+        if (regions[i] == null) {
+          regions[i] = channel.map(FileChannel.MapMode.READ_WRITE, i * length, length);
+          regions[i].order(ByteOrder.LITTLE_ENDIAN); // fixed so page files move between machines
+        }
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  MappedByteBuffer region(final long page) {
+    return regions[(int) (page / pagesPerRegion)];
+  }
+
+  int offset(final long page) {
+    return (int) (page % pagesPerRegion) * pageSize;
+  }
+}
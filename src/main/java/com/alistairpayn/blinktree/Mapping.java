@@ -1,3 +1,5 @@
+package com.alistairpayn.blinktree;
+
 import java.util.Objects;
 
 final public class Mapping<K extends Comparable<K>> implements Comparable<Mapping<K>> {
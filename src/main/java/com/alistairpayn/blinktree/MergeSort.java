@@ -0,0 +1,53 @@
+package com.alistairpayn.blinktree;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+// a stable merge sort forked on a given pool, Arrays.parallelSort sizes its tasks by the common pool's parallelism
+final class MergeSort<T> extends RecursiveAction {
+  static final int SEQUENTIAL = 1 << 13;
+
+  final T[] array;
+  final T[] buffer;
+  final int from;
+  final int to;
+  final Comparator<? super T> comparator;
+
+  private MergeSort(final T[] array, final T[] buffer, final int from, final int to,
+                    final Comparator<? super T> comparator) {
+    this.array = array;
+    this.buffer = buffer;
+    this.from = from;
+    this.to = to;
+    this.comparator = comparator;
+  }
+
+  static <T> void sort(final T[] array, final Comparator<? super T> comparator, final ForkJoinPool pool) {
+    pool.invoke(new MergeSort<>(array, array.clone(), 0, array.length, comparator));
+  }
+
+  @Override
+  protected void compute() {
+    if (to - from <= SEQUENTIAL) {
+      Arrays.sort(array, from, to, comparator);
+      return;
+    }
+
+    final var mid = (from + to) >>> 1;
+    invokeAll(new MergeSort<>(array, buffer, from, mid, comparator), new MergeSort<>(array, buffer, mid, to, comparator));
+    if (comparator.compare(array[mid - 1], array[mid]) <= 0) { // the halves are already in order
+      return;
+    }
+
+    System.arraycopy(array, from, buffer, from, mid - from);
+    var left = from;
+    var right = mid;
+    var next = from;
+    while (left < mid && right < to) { // ties take the left half first, keeping equal elements in input order
+      array[next++] = comparator.compare(array[right], buffer[left]) < 0 ? array[right++] : buffer[left++];
+    }
+    System.arraycopy(buffer, left, array, next, mid - left);
+  }
+}
@@ -0,0 +1,130 @@
+package com.alistairpayn.blinktree;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+// leaf and internal node capacities, a minimum of at most half the maximum lets an underflowing node always merge
+public final class NodeSizes {
+  static final int[] LEAF_CANDIDATES = {16, 32, 64, 128, 256};
+  static final int[] INTERNAL_CANDIDATES = {8, 16, 32, 64, 128, 256};
+  static final double TYPICAL_FILL = 0.75;
+  static final int TUNING_ROUNDS = 3;
+
+  final int leafMinSize;
+  final int leafMaxSize;
+  final int internalMinSize;
+  final int internalMaxSize;
+
+  public NodeSizes(final int leafMaxSize, final int internalMaxSize) {
+    this(leafMaxSize / 2, leafMaxSize, internalMaxSize / 2, internalMaxSize);
+  }
+
+  public NodeSizes(final int leafMinSize, final int leafMaxSize, final int internalMinSize,
+                   final int internalMaxSize) {
+    if (leafMaxSize < 4 || internalMaxSize < 4) {
+      throw new RuntimeException("BTree node size must be greater than 4");
+    }
+    if (leafMinSize < 1 || leafMinSize > leafMaxSize / 2) {
+      throw new RuntimeException("Leaf minimum size must be in [1, " + leafMaxSize / 2 + "], found " + leafMinSize);
+    }
+    if (internalMinSize < 2 || internalMinSize > internalMaxSize / 2) {
+      throw new RuntimeException("Internal node minimum size must be in [2, " + internalMaxSize / 2 + "], found "
+          + internalMinSize);
+    }
+    this.leafMinSize = leafMinSize;
+    this.leafMaxSize = leafMaxSize;
+    this.internalMinSize = internalMinSize;
+    this.internalMaxSize = internalMaxSize;
+  }
+
+  public int getLeafMinSize() {
+    return leafMinSize;
+  }
+
+  public int getLeafMaxSize() {
+    return leafMaxSize;
+  }
+
+  public int getInternalMinSize() {
+    return internalMinSize;
+  }
+
+  public int getInternalMaxSize() {
+    return internalMaxSize;
+  }
+
+  // times lookups and a full scan of a tree built from the sample for each pair of candidate sizes, skipping
+  // internal fanouts whose levels would outgrow cacheBytes, and returns the fastest pair
+  public static <K extends Comparable<K>> NodeSizes tune(final List<K> sample, final long cacheBytes) {
+    if (sample.isEmpty()) {
+      throw new RuntimeException("Tuning needs a sample of keys");
+    }
+
+    final var keys = new ArrayList<>(sample);
+    Collections.shuffle(keys, new Random(256));
+    NodeSizes best = null;
+    var bestNanos = Long.MAX_VALUE;
+    for (var leafSize : LEAF_CANDIDATES) {
+      for (var internalSize : INTERNAL_CANDIDATES) {
+        if (internalSize != INTERNAL_CANDIDATES[0]
+            && estimateInternalBytes(keys.size(), leafSize, internalSize) > cacheBytes) {
+          continue;
+        }
+        final var sizes = new NodeSizes(leafSize, internalSize);
+        final var nanos = measure(sizes, keys);
+        if (nanos < bestNanos) {
+          best = sizes;
+          bestNanos = nanos;
+        }
+      }
+    }
+    return best;
+  }
+
+  // the internal nodes above the leaves of count keys, with their arrays, when every node is at the typical fill
+  static long estimateInternalBytes(final long count, final int leafSize, final int internalSize) {
+    final var leaves = Math.ceil(count / (leafSize * TYPICAL_FILL));
+    final var fanout = Math.max(2, internalSize * TYPICAL_FILL);
+    final var nodes = leaves / (fanout - 1); // leaves / fanout + leaves / fanout^2 + ...
+    final var arrayBytes = BLinkTreeStats.align(BLinkTreeStats.ARRAY_HEADER_BYTES
+        + BLinkTreeStats.REFERENCE_BYTES * internalSize);
+    return (long) Math.ceil(nodes) * (BLinkTreeStats.NODE_BYTES + 2 * arrayBytes);
+  }
+
+  static <K extends Comparable<K>> long measure(final NodeSizes sizes, final List<K> keys) {
+    final var tree = new BLinkTree<K, K>(sizes);
+    for (var key : keys) {
+      tree.put(key, key);
+    }
+
+    var best = Long.MAX_VALUE;
+    for (int round = 0; round < TUNING_ROUNDS; ++round) {
+      var found = 0;
+      final var start = System.nanoTime();
+      for (var key : keys) {
+        if (tree.get(key) != null) {
+          ++found;
+        }
+      }
+      final var iterator = tree.iterator();
+      while (iterator.hasNext()) {
+        iterator.next();
+        ++found;
+      }
+      final var nanos = System.nanoTime() - start;
+      if (found != keys.size() + tree.size) {
+        throw new RuntimeException("Tuning tree lost keys");
+      }
+      best = Math.min(best, nanos);
+    }
+    return best;
+  }
+
+  @Override
+  public String toString() {
+    return "leaves " + leafMinSize + ".." + leafMaxSize + ", internal nodes " + internalMinSize + ".."
+        + internalMaxSize;
+  }
+}
@@ -0,0 +1,89 @@
+package com.alistairpayn.blinktree;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+// pages in direct buffers allocated in slabs, freed pages form a list threaded through their first word
+public class OffHeapPageStore implements PageStore {
+  static final int SLAB_BYTES = 1 << 26;
+
+  final int pageSize;
+  final int pagesPerSlab;
+  final long[] metadata = new long[METADATA_SLOTS];
+  ByteBuffer[] slabs = new ByteBuffer[0];
+  long pageCount = 1; // page 0 is never allocated
+  long freeList = NIL;
+
+  public OffHeapPageStore(final int pageSize) {
+    if (PagedBLinkTreeNode.capacity(pageSize) < 4 || pageSize > SLAB_BYTES) {
+      throw new RuntimeException("Page size " + pageSize + " does not fit a node of at least 4 entries");
+    }
+    this.pageSize = pageSize;
+    this.pagesPerSlab = SLAB_BYTES / pageSize;
+  }
+
+  @Override
+  public int pageSize() {
+    return pageSize;
+  }
+
+  @Override
+  public long allocate() {
+    if (freeList != NIL) {
+      final var page = freeList;
+      freeList = slab(page).getLong(offset(page));
+      return page;
+    }
+
+    final var page = pageCount++;
+    final var slab = (int) (page / pagesPerSlab);
+    if (slab == slabs.length) {
+      slabs = Arrays.copyOf(slabs, slab + 1);
+      slabs[slab] = ByteBuffer.allocateDirect(pagesPerSlab * pageSize).order(ByteOrder.nativeOrder());
+    }
+    return page;
+  }
+
+  @Override
+  public void free(final long page) {
+    slab(page).putLong(offset(page), freeList);
+    freeList = page;
+  }
+
+  @Override
+  public void pin(final long page, final PagedBLinkTreeNode node) {
+    node.attach(page, slab(page), offset(page));
+  }
+
+  @Override
+  public void unpin(final PagedBLinkTreeNode node) {
+  }
+
+  @Override
+  public long getMetadata(final int slot) {
+    return metadata[slot];
+  }
+
+  @Override
+  public void setMetadata(final int slot, final long value) {
+    metadata[slot] = value;
+  }
+
+  @Override
+  public void flush() {
+  }
+
+  @Override
+  public void close() {
+    slabs = new ByteBuffer[0]; // direct buffers are released once they become unreachable
+  }
+
+  ByteBuffer slab(final long page) {
+    return slabs[(int) (page / pagesPerSlab)];
+  }
+
+  int offset(final long page) {
+    return (int) (page % pagesPerSlab) * pageSize;
+  }
+}
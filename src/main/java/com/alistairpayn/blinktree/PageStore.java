@@ -0,0 +1,31 @@
+package com.alistairpayn.blinktree;
+
+import java.io.Closeable;
+
+// fixed-size pages addressed by id, id 0 is never handed out so it can stand for a missing link
+public interface PageStore extends Closeable {
+  long NIL = 0;
+
+  int ROOT = 0;
+  int ENTRY_COUNT = 1;
+  int METADATA_SLOTS = 8;
+
+  int pageSize();
+
+  long allocate();
+
+  void free(long page);
+
+  void pin(long page, PagedBLinkTreeNode node);
+
+  void unpin(PagedBLinkTreeNode node);
+
+  long getMetadata(int slot);
+
+  void setMetadata(int slot, long value);
+
+  void flush();
+
+  @Override
+  void close();
+}
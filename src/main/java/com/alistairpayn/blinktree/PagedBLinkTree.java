@@ -0,0 +1,287 @@
+package com.alistairpayn.blinktree;
+
+import java.io.Closeable;
+
+// a BLinkTree from long keys to long values whose nodes live in the pages of a PageStore rather than on the heap
+public class PagedBLinkTree implements Closeable {
+  final PageStore store;
+  final PagedBLinkTreeNode cursor;
+
+  public PagedBLinkTree(final PageStore store) {
+    this.store = store;
+    this.cursor = new PagedBLinkTreeNode(store.pageSize());
+    if (store.getMetadata(PageStore.ROOT) == PageStore.NIL) {
+      final var root = allocate(false);
+      store.setMetadata(PageStore.ROOT, root.page);
+      store.setMetadata(PageStore.ENTRY_COUNT, 0);
+      store.unpin(root);
+    }
+  }
+
+  public long size() {
+    return store.getMetadata(PageStore.ENTRY_COUNT);
+  }
+
+  public boolean isEmpty() {
+    return size() == 0;
+  }
+
+  public boolean containsKey(final long key) {
+    final var leaf = findLeaf(key);
+    final var found = leaf.isKeyAt(leaf.search(key), key);
+    store.unpin(leaf);
+    return found;
+  }
+
+  public long get(final long key, final long defaultValue) {
+    final var leaf = findLeaf(key);
+    final var index = leaf.search(key);
+    final var value = leaf.isKeyAt(index, key) ? leaf.getValueAt(index) : defaultValue;
+    store.unpin(leaf);
+    return value;
+  }
+
+  // descends reusing the tree's cursor so reads do not allocate, the returned leaf is pinned
+  PagedBLinkTreeNode findLeaf(final long key) {
+    store.pin(store.getMetadata(PageStore.ROOT), cursor);
+    while (cursor.isInternal()) {
+      final var child = cursor.getValueAt(cursor.search(key));
+      store.unpin(cursor);
+      store.pin(child, cursor);
+    }
+    return cursor;
+  }
+
+  public void put(final long key, final long value) {
+    final var root = pin(store.getMetadata(PageStore.ROOT));
+    if (root.isInternal() ? putInternal(root, key, value) : putLeaf(root, key, value)) {
+      store.setMetadata(PageStore.ENTRY_COUNT, size() + 1);
+    }
+
+    if (root.isOvercapacity()) { // when the root is full grow the tree by creating a new root
+      final var other = allocate(root.isInternal());
+      final var separator = split(root, other);
+      final var node = allocate(true);
+      node.setKeyAt(0, separator);
+      node.setValueAt(0, root.page);
+      node.setValueAt(1, other.page);
+      node.setSize(2);
+      store.setMetadata(PageStore.ROOT, node.page);
+      store.unpin(node);
+      store.unpin(other);
+    }
+    store.unpin(root);
+  }
+
+  public boolean remove(final long key) {
+    final var root = pin(store.getMetadata(PageStore.ROOT));
+    final var removed = root.isInternal() ? removeInternal(root, key) : removeLeaf(root, key);
+    if (removed) {
+      store.setMetadata(PageStore.ENTRY_COUNT, size() - 1);
+      if (root.size() == 1 && root.isInternal()) {
+        store.setMetadata(PageStore.ROOT, root.getValueAt(0));
+        store.unpin(root);
+        store.free(root.page);
+        return true;
+      }
+    }
+    store.unpin(root);
+    return removed;
+  }
+
+  // visits the entries between the bounds in ascending key order
+  public void scan(final long from, final boolean fromInclusive, final long to, final boolean toInclusive,
+                   final EntryConsumer consumer) {
+    final var leaf = pin(store.getMetadata(PageStore.ROOT));
+    while (leaf.isInternal()) { // a view of its own so the consumer may read the tree while the scan runs
+      final var child = leaf.getValueAt(leaf.search(from));
+      store.unpin(leaf);
+      store.pin(child, leaf);
+    }
+    var index = leaf.search(from);
+    if (!fromInclusive && leaf.isKeyAt(index, from)) {
+      ++index;
+    }
+
+    while (true) {
+      for (final int size = leaf.size(); index < size; ++index) {
+        final var key = leaf.getKeyAt(index);
+        if (key > to || (key == to && !toInclusive)) {
+          store.unpin(leaf);
+          return;
+        }
+        consumer.accept(key, leaf.getValueAt(index));
+      }
+
+      final var right = leaf.right();
+      store.unpin(leaf);
+      if (right == PageStore.NIL) {
+        return;
+      }
+      store.pin(right, leaf);
+      index = 0;
+    }
+  }
+
+  public void forEach(final EntryConsumer consumer) {
+    scan(Long.MIN_VALUE, true, Long.MAX_VALUE, true, consumer);
+  }
+
+  public void flush() {
+    store.flush();
+  }
+
+  @Override
+  public void close() {
+    store.close();
+  }
+
+  PagedBLinkTreeNode pin(final long page) {
+    final var node = new PagedBLinkTreeNode(store.pageSize());
+    store.pin(page, node);
+    return node;
+  }
+
+  PagedBLinkTreeNode allocate(final boolean isInternal) {
+    final var node = pin(store.allocate());
+    node.format(isInternal);
+    return node;
+  }
+
+  boolean putInternal(final PagedBLinkTreeNode node, final long key, final long value) {
+    final var index = node.search(key);
+    final var child = pin(node.getValueAt(index));
+    store.unpin(node); // ancestors are pinned again on the way back up, so a descent pins a frame or two at a time
+    final var insertedKey = child.isInternal() ? putInternal(child, key, value) : putLeaf(child, key, value);
+    store.pin(node.page, node);
+
+    if (!child.isOvercapacity()) { // the child is not full return
+      store.unpin(child);
+      return insertedKey;
+    }
+
+    if (child.left() != PageStore.NIL && index > 0) { // redistributed the child with the child's left sibling
+      final var left = pin(child.left());
+      final var moved = left.tryTakeFromRightSibling(child, node, index - 1);
+      store.unpin(left);
+      if (moved) {
+        store.unpin(child);
+        return insertedKey;
+      }
+    }
+
+    if (child.right() != PageStore.NIL && index < node.size() - 1) { // redistributed the child with its right sibling
+      final var right = pin(child.right());
+      final var moved = right.tryTakeFromLeftSibling(child, node, index);
+      store.unpin(right);
+      if (moved) {
+        store.unpin(child);
+        return insertedKey;
+      }
+    }
+
+    final var other = allocate(child.isInternal()); // when no redistribution is possible split the child
+    final var separator = split(child, other);
+    node.insert(separator, other.page, index + 1); // +1 because the node resulting from the split is greater keys
+    store.unpin(other);
+    store.unpin(child);
+
+    return insertedKey;
+  }
+
+  boolean putLeaf(final PagedBLinkTreeNode node, final long key, final long value) {
+    final var index = node.search(key);
+    if (node.isKeyAt(index, key)) { // overwrite value of an existing key
+      node.setValueAt(index, value);
+      return false;
+    } else { // insert a new key value pair
+      node.insert(key, value, index);
+      return true;
+    }
+  }
+
+  long split(final PagedBLinkTreeNode node, final PagedBLinkTreeNode other) {
+    final var separator = node.split(other);
+
+    other.setLeft(node.page);
+    other.setRight(node.right());
+    if (node.right() != PageStore.NIL) {
+      final var right = pin(node.right());
+      right.setLeft(other.page);
+      store.unpin(right);
+    }
+    node.setRight(other.page);
+
+    return separator;
+  }
+
+  boolean removeInternal(final PagedBLinkTreeNode node, final long key) {
+    final var index = node.search(key);
+    final var child = pin(node.getValueAt(index));
+    store.unpin(node);
+    final var removed = child.isInternal() ? removeInternal(child, key) : removeLeaf(child, key);
+    store.pin(node.page, node);
+
+    if (!child.isUnderCapacity()) { // the child is not full return
+      store.unpin(child);
+      return removed;
+    }
+
+    final var left = child.left() != PageStore.NIL && index > 0 ? pin(child.left()) : null;
+    final var right = child.right() != PageStore.NIL && index < node.size() - 1 ? pin(child.right()) : null;
+
+    var freed = PageStore.NIL;
+    if (left != null && child.tryTakeFromLeftSibling(left, node, index - 1)) {
+      // redistributed the child with the child's left sibling
+    } else if (right != null && child.tryTakeFromRightSibling(right, node, index)) {
+      // redistributed the child with the child's right sibling
+    } else if (left != null && left.merge(child, node.getKeyAt(index - 1))) {
+      // when no redistribution is possible merge the child into its left sibling
+      unlink(left, child);
+      node.delete(index);
+      freed = child.page;
+    } else if (right != null && child.merge(right, node.getKeyAt(index))) {
+      // when no redistribution is possible merge the child's right sibling into the child
+      unlink(child, right);
+      node.delete(index + 1);
+      freed = right.page;
+    }
+
+    if (left != null) {
+      store.unpin(left);
+    }
+    if (right != null) {
+      store.unpin(right);
+    }
+    store.unpin(child);
+    if (freed != PageStore.NIL) { // pages merged away go back to the store once nothing has them pinned
+      store.free(freed);
+    }
+
+    return removed;
+  }
+
+  // drops a node emptied by a merge out of its level's sibling chain
+  void unlink(final PagedBLinkTreeNode node, final PagedBLinkTreeNode merged) {
+    node.setRight(merged.right());
+    if (merged.right() != PageStore.NIL) {
+      final var right = pin(merged.right());
+      right.setLeft(node.page);
+      store.unpin(right);
+    }
+  }
+
+  boolean removeLeaf(final PagedBLinkTreeNode node, final long key) {
+    final var index = node.search(key);
+    if (node.isKeyAt(index, key)) {
+      node.delete(index);
+      return true;
+    }
+    return false;
+  }
+
+  @FunctionalInterface
+  public interface EntryConsumer {
+    void accept(long key, long value);
+  }
+}
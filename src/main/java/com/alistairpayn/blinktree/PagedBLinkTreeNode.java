@@ -0,0 +1,253 @@
+package com.alistairpayn.blinktree;
+
+import java.nio.ByteBuffer;
+
+// a view over the page of one node, reattached to another page when a PageStore pins it
+// layout: 0 internal flag (int), 4 size (int), 8 left page, 16 right page, 24 keys, 24 + capacity * 8 values
+public final class PagedBLinkTreeNode {
+  static final int INTERNAL = 0;
+  static final int SIZE = 4;
+  static final int LEFT = 8;
+  static final int RIGHT = 16;
+  static final int KEYS = 24;
+
+  final int capacity;
+  ByteBuffer buffer;
+  int base;
+  long page = PageStore.NIL;
+  boolean dirty;
+
+  PagedBLinkTreeNode(final int pageSize) {
+    this.capacity = capacity(pageSize);
+  }
+
+  static int capacity(final int pageSize) {
+    return (pageSize - KEYS) / (2 * Long.BYTES);
+  }
+
+  void attach(final long page, final ByteBuffer buffer, final int base) {
+    this.page = page;
+    this.buffer = buffer;
+    this.base = base;
+    this.dirty = false;
+  }
+
+  void format(final boolean isInternal) {
+    buffer.putInt(base + INTERNAL, isInternal ? 1 : 0);
+    setSize(0);
+    setLeft(PageStore.NIL);
+    setRight(PageStore.NIL);
+  }
+
+  public int getMinSize() {
+    return (capacity + 1) / 2;
+  }
+
+  public boolean isInternal() {
+    return buffer.getInt(base + INTERNAL) != 0;
+  }
+
+  public int size() {
+    return buffer.getInt(base + SIZE);
+  }
+
+  void setSize(final int size) {
+    buffer.putInt(base + SIZE, size);
+    dirty = true;
+  }
+
+  public long left() {
+    return buffer.getLong(base + LEFT);
+  }
+
+  void setLeft(final long page) {
+    buffer.putLong(base + LEFT, page);
+    dirty = true;
+  }
+
+  public long right() {
+    return buffer.getLong(base + RIGHT);
+  }
+
+  void setRight(final long page) {
+    buffer.putLong(base + RIGHT, page);
+    dirty = true;
+  }
+
+  public long getKeyAt(final int index) {
+    return buffer.getLong(base + KEYS + (index << 3));
+  }
+
+  void setKeyAt(final int index, final long key) {
+    buffer.putLong(base + KEYS + (index << 3), key);
+    dirty = true;
+  }
+
+  public long getValueAt(final int index) {
+    return buffer.getLong(base + KEYS + ((capacity + index) << 3));
+  }
+
+  void setValueAt(final int index, final long value) {
+    buffer.putLong(base + KEYS + ((capacity + index) << 3), value);
+    dirty = true;
+  }
+
+  public boolean isOvercapacity() {
+    return size() >= capacity;
+  }
+
+  public boolean isUnderCapacity() {
+    return size() < getMinSize();
+  }
+
+  public int search(final long key) {
+    int low = 0;
+    int high = (isInternal() ? size() - 1 : size()) - 1;
+    while (low <= high) {
+      final int mid = (low + high) >>> 1;
+      final long midKey = getKeyAt(mid);
+      if (midKey < key) {
+        low = mid + 1;
+      } else if (midKey > key) {
+        high = mid - 1;
+      } else {
+        return isInternal() ? mid + 1 : mid;
+      }
+    }
+    return low;
+  }
+
+  public boolean isKeyAt(final int index, final long key) {
+    return index < size() && getKeyAt(index) == key;
+  }
+
+  // the copies walk backwards when moving entries right within a page so overlapping ranges are not clobbered
+  void copyKeys(final int from, final PagedBLinkTreeNode to, final int toIndex, final int count) {
+    if (to.page == page && toIndex > from) {
+      for (int i = count - 1; i >= 0; --i) {
+        to.setKeyAt(toIndex + i, getKeyAt(from + i));
+      }
+    } else {
+      for (int i = 0; i < count; ++i) {
+        to.setKeyAt(toIndex + i, getKeyAt(from + i));
+      }
+    }
+  }
+
+  void copyValues(final int from, final PagedBLinkTreeNode to, final int toIndex, final int count) {
+    if (to.page == page && toIndex > from) {
+      for (int i = count - 1; i >= 0; --i) {
+        to.setValueAt(toIndex + i, getValueAt(from + i));
+      }
+    } else {
+      for (int i = 0; i < count; ++i) {
+        to.setValueAt(toIndex + i, getValueAt(from + i));
+      }
+    }
+  }
+
+  void insert(final long key, final long value, final int index) {
+    final int size = size();
+    if (isInternal()) { // the key separates the child at index - 1 from the inserted child
+      copyKeys(index - 1, this, index, size - index);
+      setKeyAt(index - 1, key);
+    } else {
+      copyKeys(index, this, index + 1, size - index);
+      setKeyAt(index, key);
+    }
+    copyValues(index, this, index + 1, size - index);
+    setValueAt(index, value);
+    setSize(size + 1);
+  }
+
+  void delete(final int index) {
+    final int size = size();
+    if (isInternal()) { // drop the key separating the deleted child from its left sibling
+      copyKeys(index, this, index - 1, size - index - 1);
+    } else {
+      copyKeys(index + 1, this, index, size - index - 1);
+    }
+    copyValues(index + 1, this, index, size - index - 1);
+    setSize(size - 1);
+  }
+
+  // moves the upper half into other, the caller links other into the level and returns the separator
+  long split(final PagedBLinkTreeNode other) {
+    final int otherSize = size() / 2;
+    final int size = size() - otherSize;
+
+    copyKeys(size, other, 0, otherSize);
+    copyValues(size, other, 0, otherSize);
+    other.setSize(otherSize);
+    setSize(size);
+
+    return isInternal() ? getKeyAt(size - 1) : other.getKeyAt(0);
+  }
+
+  boolean merge(final PagedBLinkTreeNode right, final long separator) {
+    final int size = size();
+    final int rightSize = right.size();
+    if (size + rightSize >= capacity) { // can't merge nodes if resulting node will be overcapacity
+      return false;
+    }
+
+    if (isInternal()) {
+      setKeyAt(size - 1, separator);
+    }
+
+    right.copyKeys(0, this, size, rightSize);
+    right.copyValues(0, this, size, rightSize);
+    setSize(size + rightSize);
+    right.setSize(0);
+
+    return true;
+  }
+
+  boolean tryTakeFromRightSibling(final PagedBLinkTreeNode right, final PagedBLinkTreeNode parent,
+                                  final int separatorIndex) {
+    final int size = size();
+    final int rightSize = right.size();
+    if (size >= capacity - 1 || rightSize <= right.getMinSize()) {
+      return false;
+    }
+
+    if (isInternal()) {
+      setKeyAt(size - 1, parent.getKeyAt(separatorIndex));
+    }
+
+    final int delta = rightSize - (size + rightSize) / 2;
+    right.copyKeys(0, this, size, delta);
+    right.copyValues(0, this, size, delta);
+    right.copyKeys(delta, right, 0, rightSize - delta);
+    right.copyValues(delta, right, 0, rightSize - delta);
+    setSize(size + delta);
+    right.setSize(rightSize - delta);
+
+    parent.setKeyAt(separatorIndex, isInternal() ? getKeyAt(size + delta - 1) : right.getKeyAt(0));
+    return true;
+  }
+
+  boolean tryTakeFromLeftSibling(final PagedBLinkTreeNode left, final PagedBLinkTreeNode parent,
+                                 final int separatorIndex) {
+    final int size = size();
+    final int leftSize = left.size();
+    if (size >= capacity - 1 || leftSize <= left.getMinSize()) {
+      return false;
+    }
+
+    if (isInternal()) {
+      left.setKeyAt(leftSize - 1, parent.getKeyAt(separatorIndex));
+    }
+
+    final int delta = leftSize - (size + leftSize) / 2;
+    copyKeys(0, this, delta, size);
+    copyValues(0, this, delta, size);
+    left.copyKeys(leftSize - delta, this, 0, delta);
+    left.copyValues(leftSize - delta, this, 0, delta);
+    setSize(size + delta);
+    left.setSize(leftSize - delta);
+
+    parent.setKeyAt(separatorIndex, isInternal() ? left.getKeyAt(leftSize - delta - 1) : getKeyAt(0));
+    return true;
+  }
+}
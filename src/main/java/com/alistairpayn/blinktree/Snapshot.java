@@ -0,0 +1,201 @@
+package com.alistairpayn.blinktree;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.zip.CRC32C;
+
+// magic (long), entry count (long), then blocks of payload length (int), entry count (int), CRC32C (int), payload
+final class Snapshot {
+  static final long MAGIC = 0x424c696e6b536e70L;
+  static final int HEADER = 2 * Long.BYTES;
+  static final int BLOCK_HEADER = 3 * Integer.BYTES;
+  static final int BLOCK_BYTES = 1 << 20;
+
+  private Snapshot() {
+  }
+
+  @SuppressWarnings("unchecked")
+  static <K extends Comparable<K>, V> void write(final BLinkTree<K, V> tree, final WritableByteChannel channel,
+                                                  final Codec<K> keyCodec, final Codec<V> valueCodec) {
+    final var crc = new CRC32C();
+    final var buffer = ByteBuffer.allocateDirect(BLOCK_BYTES);
+    buffer.putLong(MAGIC).putLong(tree.size);
+    write(channel, buffer);
+
+    var node = tree.root;
+    while (node.isInternal) {
+      node = node.getChildAt(0);
+    }
+    buffer.position(BLOCK_HEADER);
+    var count = 0;
+    for (; node != null; node = node.right) { // stream the leaf chain along the right links
+      for (int i = 0; i < node.size; ++i) {
+        final var key = node.getKeyAt(i);
+        final var value = (V) node.values[i];
+        final var length = keyCodec.size(key) + valueCodec.size(value);
+        if (buffer.remaining() < length && count > 0) {
+          writeBlock(channel, buffer, count, crc);
+          count = 0;
+          buffer.position(BLOCK_HEADER);
+        }
+        if (buffer.remaining() < length) { // an entry larger than a block is written alone from a buffer of its own
+          final var large = ByteBuffer.allocateDirect(BLOCK_HEADER + length).position(BLOCK_HEADER);
+          keyCodec.encode(key, large);
+          valueCodec.encode(value, large);
+          writeBlock(channel, large, 1, crc);
+          continue;
+        }
+        keyCodec.encode(key, buffer);
+        valueCodec.encode(value, buffer);
+        ++count;
+      }
+    }
+    if (count > 0) {
+      writeBlock(channel, buffer, count, crc);
+    }
+  }
+
+  static void writeBlock(final WritableByteChannel channel, final ByteBuffer buffer, final int count,
+                         final CRC32C crc) {
+    final var length = buffer.position() - BLOCK_HEADER;
+    crc.reset();
+    crc.update(buffer.duplicate().position(BLOCK_HEADER).limit(buffer.position()));
+    buffer.putInt(0, length).putInt(Integer.BYTES, count).putInt(2 * Integer.BYTES, (int) crc.getValue());
+    write(channel, buffer);
+  }
+
+  static void write(final WritableByteChannel channel, final ByteBuffer buffer) {
+    try {
+      buffer.flip();
+      while (buffer.hasRemaining()) {
+        channel.write(buffer);
+      }
+      buffer.clear();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  static <K extends Comparable<K>, V> void read(final BLinkTree<K, V> tree, final ReadableByteChannel channel,
+                                                 final Codec<K> keyCodec, final Codec<V> valueCodec) {
+    final var reader = new Reader<>(channel, keyCodec, valueCodec);
+    tree.bulkLoad(reader, 1.0);
+    reader.finish();
+  }
+
+  // decodes the snapshot a block at a time as the bulk load pulls entries
+  static final class Reader<K extends Comparable<K>, V> implements Iterator<Mapping<K>> {
+    final ReadableByteChannel channel;
+    final Codec<K> keyCodec;
+    final Codec<V> valueCodec;
+    final CRC32C crc = new CRC32C();
+    final long size;
+    ByteBuffer buffer = ByteBuffer.allocateDirect(BLOCK_BYTES);
+    long remaining;
+    int blockRemaining;
+
+    Reader(final ReadableByteChannel channel, final Codec<K> keyCodec, final Codec<V> valueCodec) {
+      this.channel = channel;
+      this.keyCodec = keyCodec;
+      this.valueCodec = valueCodec;
+      read(HEADER);
+      if (buffer.getLong() != MAGIC) {
+        throw new RuntimeException("Not a BLinkTree snapshot");
+      }
+      this.size = buffer.getLong();
+      this.remaining = size;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return remaining > 0;
+    }
+
+    @Override
+    public Mapping<K> next() {
+      if (remaining == 0) {
+        throw new NoSuchElementException("End of snapshot.");
+      }
+      if (blockRemaining == 0) {
+        readBlock();
+      }
+      --blockRemaining;
+      --remaining;
+      final var key = keyCodec.decode(buffer);
+      return new Mapping<>(key, valueCodec.decode(buffer));
+    }
+
+    void readBlock() {
+      read(BLOCK_HEADER);
+      final var length = buffer.getInt();
+      blockRemaining = buffer.getInt();
+      final var checksum = buffer.getInt();
+      if (length < 0 || blockRemaining <= 0) {
+        throw new RuntimeException("Snapshot block header is corrupt");
+      }
+      // only a block of a single entry outgrows BLOCK_BYTES, and no block outgrows what is left of the channel
+      if (blockRemaining > 1 && length > BLOCK_BYTES - BLOCK_HEADER || length > available()) {
+        throw new RuntimeException("Snapshot block header records " + length + " bytes, more than the snapshot holds");
+      }
+      if (buffer.capacity() < length) {
+        buffer = ByteBuffer.allocateDirect(length);
+      }
+      read(length);
+      crc.reset();
+      crc.update(buffer.duplicate());
+      if ((int) crc.getValue() != checksum) {
+        throw new RuntimeException("Snapshot block fails its checksum");
+      }
+    }
+
+    long available() {
+      try {
+        return channel instanceof SeekableByteChannel seekable
+            ? seekable.size() - seekable.position()
+            : Integer.MAX_VALUE;
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+
+    // the entry count in the header must account for every byte of the snapshot
+    void finish() {
+      if (blockRemaining != 0 || buffer.hasRemaining()) {
+        throw new RuntimeException("Snapshot holds more entries than its header records");
+      }
+      buffer.clear().limit(1);
+      try {
+        var read = 0;
+        while (read == 0) {
+          read = channel.read(buffer);
+        }
+        if (read > 0) {
+          throw new RuntimeException("Snapshot continues past the entries its header records");
+        }
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+
+    // fills the buffer with exactly the given number of bytes, ready to decode
+    void read(final int bytes) {
+      buffer.clear().limit(bytes);
+      try {
+        while (buffer.hasRemaining()) {
+          if (channel.read(buffer) < 0) {
+            throw new RuntimeException("Snapshot ends part way through");
+          }
+        }
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+      buffer.flip();
+    }
+  }
+}
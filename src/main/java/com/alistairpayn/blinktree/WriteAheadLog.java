@@ -0,0 +1,261 @@
+package com.alistairpayn.blinktree;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.zip.CRC32C;
+
+// records are framed as payload length (int), CRC32C of the payload (int), operation (byte), key, value for puts
+// sync is a group commit, the first writer to find the log behind forces every record appended so far
+public class WriteAheadLog<K, V> implements Closeable {
+  static final byte PUT = 1;
+  static final byte REMOVE = 2;
+  static final int RECORD_HEADER = 2 * Integer.BYTES;
+  static final int BUFFER_BYTES = 1 << 16;
+
+  final FileChannel channel;
+  final Codec<K> keyCodec;
+  final Codec<V> valueCodec;
+  final ReentrantLock lock = new ReentrantLock();
+  final Condition synced = lock.newCondition();
+  final CRC32C crc = new CRC32C();
+  ByteBuffer pending = ByteBuffer.allocateDirect(BUFFER_BYTES);
+  ByteBuffer writing = ByteBuffer.allocateDirect(BUFFER_BYTES);
+  long base; // the sequence number of the first byte of the file
+  long appended;
+  long durable;
+  boolean syncing;
+  UncheckedIOException failure;
+  long syncs;
+
+  public WriteAheadLog(final Path path, final Codec<K> keyCodec, final Codec<V> valueCodec) {
+    this.keyCodec = keyCodec;
+    this.valueCodec = valueCodec;
+    try {
+      this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+          StandardOpenOption.WRITE);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  // applies every intact record and cuts off a torn tail, so later appends follow the last intact record
+  public void replay(final BiConsumer<K, V> put, final Consumer<K> remove) {
+    final var end = read(channel, keyCodec, valueCodec, put, remove);
+    try {
+      channel.truncate(end);
+      channel.position(end);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    lock.lock();
+    try {
+      appended = durable = base + end;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  // reads records from the start of the channel until the first incomplete or corrupt one, returning where it starts
+  static <K, V> long read(final FileChannel channel, final Codec<K> keyCodec, final Codec<V> valueCodec,
+                          final BiConsumer<K, V> put, final Consumer<K> remove) {
+    final var crc = new CRC32C();
+    var buffer = ByteBuffer.allocateDirect(1 << 20).limit(0);
+    long position = 0;
+    try {
+      final var size = channel.size();
+      channel.position(0);
+      while (true) {
+        buffer = fill(channel, buffer, RECORD_HEADER);
+        if (buffer.remaining() < RECORD_HEADER) {
+          return position;
+        }
+        final var length = buffer.getInt(buffer.position());
+        if (length <= 0 || length > size - position - RECORD_HEADER) { // a torn length reaching past the end
+          return position;
+        }
+        buffer = fill(channel, buffer, RECORD_HEADER + length);
+
+        final var checksum = buffer.getInt(buffer.position() + Integer.BYTES);
+        final var payload = buffer.duplicate().position(buffer.position() + RECORD_HEADER);
+        payload.limit(payload.position() + length);
+        crc.reset();
+        crc.update(payload.duplicate());
+        if ((int) crc.getValue() != checksum) {
+          return position;
+        }
+
+        final var operation = payload.get();
+        final var key = keyCodec.decode(payload);
+        if (operation == PUT) {
+          put.accept(key, valueCodec.decode(payload));
+        } else {
+          remove.accept(key);
+        }
+        buffer.position(buffer.position() + RECORD_HEADER + length);
+        position += RECORD_HEADER + length;
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  // reads until the buffer holds the given number of bytes or the channel ends, growing the buffer when too small
+  static ByteBuffer fill(final FileChannel channel, final ByteBuffer buffer, final int bytes) throws IOException {
+    if (buffer.remaining() >= bytes) {
+      return buffer;
+    }
+
+    final var target = buffer.capacity() < bytes
+        ? ByteBuffer.allocateDirect(Integer.highestOneBit(bytes) << 1).put(buffer)
+        : buffer.compact();
+    while (target.position() < bytes && channel.read(target) >= 0) {
+      // keep reading until the record is buffered
+    }
+    return target.flip();
+  }
+
+  public long appendPut(final K key, final V value) {
+    return append(PUT, key, value);
+  }
+
+  public long appendRemove(final K key) {
+    return append(REMOVE, key, null);
+  }
+
+  long append(final byte operation, final K key, final V value) {
+    final var length = 1 + keyCodec.size(key) + (operation == PUT ? valueCodec.size(value) : 0);
+    lock.lock();
+    try {
+      if (pending.remaining() < RECORD_HEADER + length) {
+        final var grown = ByteBuffer.allocateDirect(Math.max(pending.capacity() * 2,
+            pending.position() + RECORD_HEADER + length));
+        pending = grown.put(pending.flip());
+      }
+      encode(pending, crc, operation, key, value, length, keyCodec, valueCodec);
+      appended += RECORD_HEADER + length;
+      return appended;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  static <K, V> void encode(final ByteBuffer buffer, final CRC32C crc, final byte operation, final K key,
+                            final V value, final int length, final Codec<K> keyCodec, final Codec<V> valueCodec) {
+    final var start = buffer.position();
+    buffer.putInt(length);
+    buffer.putInt(0);
+    buffer.put(operation);
+    keyCodec.encode(key, buffer);
+    if (operation == PUT) {
+      valueCodec.encode(value, buffer);
+    }
+    crc.reset();
+    crc.update(buffer.duplicate().position(start + RECORD_HEADER).limit(buffer.position()));
+    buffer.putInt(start + Integer.BYTES, (int) crc.getValue());
+  }
+
+  // returns once every record up to the sequence number is forced to the device
+  public void sync(final long sequence) {
+    lock.lock();
+    try {
+      while (durable < sequence || failure != null) {
+        if (failure != null) {
+          throw failure;
+        }
+        if (syncing) {
+          synced.awaitUninterruptibly();
+          continue;
+        }
+
+        syncing = true;
+        final var target = appended;
+        final var batch = pending;
+        pending = writing;
+        writing = batch;
+        lock.unlock();
+        IOException error = null;
+        try {
+          batch.flip();
+          while (batch.hasRemaining()) {
+            channel.write(batch);
+          }
+          channel.force(false);
+        } catch (IOException e) {
+          error = e;
+        }
+        batch.clear();
+        lock.lock();
+        syncing = false;
+        synced.signalAll();
+        if (error != null) { // the batch is gone, so no later sync can be trusted to cover it
+          failure = new UncheckedIOException("Write-ahead log sync failed", error);
+        } else {
+          durable = Math.max(durable, target);
+          ++syncs;
+        }
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public void sync() {
+    final long sequence;
+    lock.lock();
+    try {
+      sequence = appended;
+    } finally {
+      lock.unlock();
+    }
+    sync(sequence);
+  }
+
+  // empties the log once a checkpoint covers every record, the caller must stop appends meanwhile
+  public void reset() {
+    lock.lock();
+    try {
+      while (syncing) {
+        synced.awaitUninterruptibly();
+      }
+      pending.clear();
+      channel.truncate(0);
+      channel.position(0);
+      channel.force(false);
+      base = appended;
+      durable = appended;
+      synced.signalAll();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public long getSyncs() {
+    lock.lock();
+    try {
+      return syncs;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public void close() {
+    sync();
+    try {
+      channel.close();
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+}
@@ -1,13 +0,0 @@
-import org.junit.jupiter.api.Test;
-
-class BLinkTreeTest {
-  @Test
-  void testPutPromotedNodeInternal() {
-
-  }
-
-  @Test
-  void testPutPromotedNodeLeaf() {
-
-  }
-}
\ No newline at end of file
@@ -1,3 +1,5 @@
+package com.alistairpayn.blinktree;
+
 import org.junit.jupiter.api.DynamicTest;
 import org.junit.jupiter.api.TestFactory;
 
@@ -0,0 +1,79 @@
+package com.alistairpayn.blinktree;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BLinkTreeMetricsTest {
+  static int height(BLinkTree<Integer, Integer> tree) {
+    return BLinkTreeMetrics.level(tree.root) + 1;
+  }
+
+  @Test
+  void testCountsFollowTheTreeShape() {
+    final var tree = new BLinkTree<Integer, Integer>(4);
+    for (int i = 0; i < 10_000; ++i) {
+      tree.put(i, i);
+    }
+    final var grown = tree.getMetrics().snapshot();
+    assertTrue(grown.getSplits() > 0);
+    assertEquals(height(tree) - 1, grown.getRootGrowths());
+    assertEquals(0, grown.getRootShrinks());
+
+    final var random = new Random(256);
+    for (int i = 0; i < 20_000; ++i) { // random puts land beside full siblings and redistribute
+      tree.put(random.nextInt(1_000_000), i);
+    }
+    assertTrue(tree.getMetrics().getRedistributions() > 0);
+
+    final var beforeRemoves = tree.getMetrics().snapshot();
+    for (var key : tree.stream().map(mapping -> mapping.key).toList()) {
+      assertTrue(tree.remove(key));
+    }
+    final var removed = tree.getMetrics().snapshot().since(beforeRemoves);
+    assertTrue(removed.getMerges() > 0);
+    assertEquals(0, removed.getSplits());
+    assertEquals(beforeRemoves.getRootGrowths(), removed.getRootShrinks());
+    assertEquals(1, height(tree));
+  }
+
+  @Test
+  void testEmitsFlightRecorderEvents(@TempDir final Path directory) throws IOException {
+    final var tree = new BLinkTree<Integer, Integer>(8);
+    final var file = directory.resolve("structure.jfr");
+    try (var recording = new Recording()) {
+      recording.enable(BLinkTreeMetrics.StructureEvent.class);
+      recording.start();
+      for (int i = 0; i < 5_000; ++i) {
+        tree.put(i, i);
+      }
+      recording.stop();
+      recording.dump(file);
+    }
+
+    var splits = 0;
+    var growths = 0;
+    for (var event : RecordingFile.readAllEvents(file)) {
+      if (!event.getEventType().getName().equals("com.alistairpayn.blinktree.Structure")) {
+        continue;
+      }
+      final var operation = event.getString("operation");
+      if (operation.equals(BLinkTreeMetrics.SPLIT)) {
+        ++splits;
+        assertTrue(event.getInt("level") < height(tree));
+        assertTrue(event.getInt("entries") > 0);
+      } else if (operation.equals(BLinkTreeMetrics.GROW_ROOT)) {
+        ++growths;
+      }
+    }
+    assertEquals(tree.getMetrics().getSplits(), splits);
+    assertEquals(tree.getMetrics().getRootGrowths(), growths);
+  }
+}
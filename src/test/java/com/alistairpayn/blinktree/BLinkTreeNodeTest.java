@@ -1,3 +1,5 @@
+package com.alistairpayn.blinktree;
+
 import org.junit.jupiter.api.DynamicTest;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestFactory;
@@ -9,16 +11,18 @@ import static org.junit.jupiter.api.Assertions.assertNull;
 
 class BLinkTreeNodeTest {
 
+  private final BLinkTreeMetrics metrics = new BLinkTreeMetrics(); // shared by the nodes of a test as a tree would share its own
+
   @Test
   void testInternalNodeSearchFixedEven() {
     final var size = 4;
 
-    final var node = new BLinkTreeNode<Integer>(size, true);
+    final var node = new BLinkTreeNode<Integer>(size, true, null, 0, metrics, (size + 1) / 2);
     node.size = size;
-    node.array[0] = new Mapping<>(1, 0);
-    node.array[1] = new Mapping<>(3, 2);
-    node.array[2] = new Mapping<>(5, 4);
-    node.array[3] = new Mapping<>(null, 6);
+    node.setMappingAt(0, new Mapping<>(1, 0));
+    node.setMappingAt(1, new Mapping<>(3, 2));
+    node.setMappingAt(2, new Mapping<>(5, 4));
+    node.setMappingAt(3, new Mapping<>(null, 6));
 
     assertEquals(0, node.search(0));
     assertEquals(1, node.search(1));
@@ -33,12 +37,12 @@ class BLinkTreeNodeTest {
   void testLeafNodeSearchFixedEven() {
     final var size = 4;
 
-    final var node = new BLinkTreeNode<Integer>(size, false);
+    final var node = new BLinkTreeNode<Integer>(size, false, null, 0, metrics, (size + 1) / 2);
     node.size = size;
-    node.array[0] = new Mapping<>(1, 10);
-    node.array[1] = new Mapping<>(2, 20);
-    node.array[2] = new Mapping<>(3, 30);
-    node.array[3] = new Mapping<>(4, 40);
+    node.setMappingAt(0, new Mapping<>(1, 10));
+    node.setMappingAt(1, new Mapping<>(2, 20));
+    node.setMappingAt(2, new Mapping<>(3, 30));
+    node.setMappingAt(3, new Mapping<>(4, 40));
 
     assertEquals(0, node.search(0));
     assertEquals(0, node.search(1));
@@ -52,9 +56,9 @@ class BLinkTreeNodeTest {
   void testInternalNodeSearchEven() {
     final var size = 4;
 
-    final var node = new BLinkTreeNode<Integer>(size, true);
+    final var node = new BLinkTreeNode<Integer>(size, true, null, 0, metrics, (size + 1) / 2);
     for (int i = 0; i < size; ++i) {
-      node.array[i] = new Mapping<>(i);
+      node.setMappingAt(i, new Mapping<>(i));
       ++node.size;
       assertEquals(0, node.search(-1));
       assertEquals(i, node.search(i));
@@ -66,9 +70,9 @@ class BLinkTreeNodeTest {
   void testLeafNodeSearchEven() {
     final var size = 4;
 
-    final var node = new BLinkTreeNode<Integer>(size, false);
+    final var node = new BLinkTreeNode<Integer>(size, false, null, 0, metrics, (size + 1) / 2);
     for (int i = 0; i < size; ++i) {
-      node.array[i] = new Mapping<>(i);
+      node.setMappingAt(i, new Mapping<>(i));
       ++node.size;
       assertEquals(0, node.search(-1));
       assertEquals(i, node.search(i));
@@ -80,9 +84,9 @@ class BLinkTreeNodeTest {
   void testInternalNodeSearchOdd() {
     final var size = 5;
 
-    final var node = new BLinkTreeNode<Integer>(size, true);
+    final var node = new BLinkTreeNode<Integer>(size, true, null, 0, metrics, (size + 1) / 2);
     for (int i = 0; i < size; ++i) {
-      node.array[i] = new Mapping<>(i);
+      node.setMappingAt(i, new Mapping<>(i));
       ++node.size;
       assertEquals(0, node.search(-1));
       assertEquals(i, node.search(i));
@@ -94,9 +98,9 @@ class BLinkTreeNodeTest {
   void testLeafNodeSearchOdd() {
     final var size = 5;
 
-    final var node = new BLinkTreeNode<Integer>(size, false);
+    final var node = new BLinkTreeNode<Integer>(size, false, null, 0, metrics, (size + 1) / 2);
     for (int i = 0; i < size; ++i) {
-      node.array[i] = new Mapping<>(i);
+      node.setMappingAt(i, new Mapping<>(i));
       ++node.size;
       assertEquals(0, node.search(-1));
       assertEquals(i, node.search(i));
@@ -108,12 +112,12 @@ class BLinkTreeNodeTest {
   void testInternalNodeSplitEven() {
     final var size = 4;
 
-    final var node = new BLinkTreeNode<Integer>(size, true);
+    final var node = new BLinkTreeNode<Integer>(size, true, null, 0, metrics, (size + 1) / 2);
     node.size = size;
-    node.array[0] = new Mapping<>(1, 0);
-    node.array[1] = new Mapping<>(3, 2);
-    node.array[2] = new Mapping<>(5, 4);
-    node.array[3] = new Mapping<>(null, 6);
+    node.setMappingAt(0, new Mapping<>(1, 0));
+    node.setMappingAt(1, new Mapping<>(3, 2));
+    node.setMappingAt(2, new Mapping<>(5, 4));
+    node.setMappingAt(3, new Mapping<>(null, 6));
 
     final var right = node.split();
 
@@ -137,13 +141,13 @@ class BLinkTreeNodeTest {
   void testInternalNodeSplitOdd() {
     final var size = 5;
 
-    final var node = new BLinkTreeNode<Integer>(size, true);
+    final var node = new BLinkTreeNode<Integer>(size, true, null, 0, metrics, (size + 1) / 2);
     node.size = size;
-    node.array[0] = new Mapping<>(1, 0);
-    node.array[1] = new Mapping<>(3, 2);
-    node.array[2] = new Mapping<>(5, 4);
-    node.array[3] = new Mapping<>(7, 6);
-    node.array[4] = new Mapping<>(null, 8);
+    node.setMappingAt(0, new Mapping<>(1, 0));
+    node.setMappingAt(1, new Mapping<>(3, 2));
+    node.setMappingAt(2, new Mapping<>(5, 4));
+    node.setMappingAt(3, new Mapping<>(7, 6));
+    node.setMappingAt(4, new Mapping<>(null, 8));
 
     final var right = node.split();
 
@@ -170,9 +174,9 @@ class BLinkTreeNodeTest {
     final var size = 4;
     final var half = size / 2;
 
-    final var node = new BLinkTreeNode<Integer>(size, false);
+    final var node = new BLinkTreeNode<Integer>(size, false, null, 0, metrics, (size + 1) / 2);
     for (int i = 0; i < size; ++i) {
-      node.array[i] = new Mapping<>(i, i * 10);
+      node.setMappingAt(i, new Mapping<>(i, i * 10));
       ++node.size;
     }
 
@@ -199,9 +203,9 @@ class BLinkTreeNodeTest {
     final var size = 4;
     final var half = size / 2;
 
-    final var node = new BLinkTreeNode<Integer>(size, false);
+    final var node = new BLinkTreeNode<Integer>(size, false, null, 0, metrics, (size + 1) / 2);
     for (int i = 0; i < size; ++i) {
-      node.array[i] = new Mapping<>(i, i * 10);
+      node.setMappingAt(i, new Mapping<>(i, i * 10));
       ++node.size;
     }
 
@@ -234,7 +238,7 @@ class BLinkTreeNodeTest {
             .limit(size - 1)
             .map(position ->
                 DynamicTest.dynamicTest("Position " + position + "/" + (size - 1), () -> {
-                  final var node = new BLinkTreeNode<Integer>(size, true);
+                  final var node = new BLinkTreeNode<Integer>(size, true, null, 0, metrics, (size + 1) / 2);
 
                   int insertKey = 15;
                   int insertValue = 14;
@@ -245,7 +249,7 @@ class BLinkTreeNodeTest {
                       k += 2;
                       v += 2;
                     }
-                    node.array[i] = new Mapping<>(k, v);
+                    node.setMappingAt(i, new Mapping<>(k, v));
                     ++node.size;
                   }
 
@@ -277,7 +281,7 @@ class BLinkTreeNodeTest {
             .limit(size - 1)
             .map(position ->
                 DynamicTest.dynamicTest("Position " + position + "/" + (size - 1), () -> {
-                  final var node = new BLinkTreeNode<Integer>(size, false);
+                  final var node = new BLinkTreeNode<Integer>(size, false, null, 0, metrics, (size + 1) / 2);
 
                   int insertKey = 7;
                   int insertValue = 70;
@@ -287,7 +291,7 @@ class BLinkTreeNodeTest {
                       insertValue = k * 10;
                       ++k;
                     }
-                    node.array[i] = new Mapping<>(k, k * 10);
+                    node.setMappingAt(i, new Mapping<>(k, k * 10));
                     ++node.size;
                   }
 
@@ -314,10 +318,10 @@ class BLinkTreeNodeTest {
             .limit(size)
             .map(position ->
                 DynamicTest.dynamicTest("Position " + position + "/" + (size - 1), () -> {
-                  final var node = new BLinkTreeNode<Integer>(size, true);
+                  final var node = new BLinkTreeNode<Integer>(size, true, null, 0, metrics, (size + 1) / 2);
 
                   for (int i = 0, k = 1, v = 0; i < size; ++i, k += 2, v += 2) {
-                    node.array[i] = new Mapping<>(k, v);
+                    node.setMappingAt(i, new Mapping<>(k, v));
                     ++node.size;
                   }
 
@@ -350,10 +354,10 @@ class BLinkTreeNodeTest {
             .limit(size - 1)
             .map(position ->
                 DynamicTest.dynamicTest("Position " + position + "/" + (size - 1), () -> {
-                  final var node = new BLinkTreeNode<Integer>(size, false);
+                  final var node = new BLinkTreeNode<Integer>(size, false, null, 0, metrics, (size + 1) / 2);
 
                   for (int i = 0, k = 0; i < size; ++i, ++k) {
-                    node.array[i] = new Mapping<>(k, k * 10);
+                    node.setMappingAt(i, new Mapping<>(k, k * 10));
                     ++node.size;
                   }
 
@@ -378,19 +382,19 @@ class BLinkTreeNodeTest {
   void testLeftTryTakeFromRightSiblingBothMaxSize() {
     final var size = 4;
 
-    final var left = new BLinkTreeNode<Integer>(size, true);
+    final var left = new BLinkTreeNode<Integer>(size, true, null, 0, metrics, (size + 1) / 2);
     left.size = size;
-    left.array[0] = new Mapping<>(1, 0);
-    left.array[1] = new Mapping<>(3, 2);
-    left.array[2] = new Mapping<>(5, 4);
-    left.array[3] = new Mapping<>(null, 6);
+    left.setMappingAt(0, new Mapping<>(1, 0));
+    left.setMappingAt(1, new Mapping<>(3, 2));
+    left.setMappingAt(2, new Mapping<>(5, 4));
+    left.setMappingAt(3, new Mapping<>(null, 6));
 
-    final var right = new BLinkTreeNode<Integer>(size, true);
+    final var right = new BLinkTreeNode<Integer>(size, true, null, 0, metrics, (size + 1) / 2);
     right.size = size;
-    right.array[0] = new Mapping<>(7, 6);
-    right.array[1] = new Mapping<>(9, 8);
-    right.array[2] = new Mapping<>(11, 10);
-    right.array[3] = new Mapping<>(null, 12);
+    right.setMappingAt(0, new Mapping<>(7, 6));
+    right.setMappingAt(1, new Mapping<>(9, 8));
+    right.setMappingAt(2, new Mapping<>(11, 10));
+    right.setMappingAt(3, new Mapping<>(null, 12));
 
     right.left = left;
     left.right = right;
@@ -423,19 +427,19 @@ class BLinkTreeNodeTest {
   void testRightTryTakeFromLeftSiblingBothMaxSize() {
     final var size = 4;
 
-    final var left = new BLinkTreeNode<Integer>(size, true);
+    final var left = new BLinkTreeNode<Integer>(size, true, null, 0, metrics, (size + 1) / 2);
     left.size = size;
-    left.array[0] = new Mapping<>(1, 0);
-    left.array[1] = new Mapping<>(3, 2);
-    left.array[2] = new Mapping<>(5, 4);
-    left.array[3] = new Mapping<>(null, 6);
+    left.setMappingAt(0, new Mapping<>(1, 0));
+    left.setMappingAt(1, new Mapping<>(3, 2));
+    left.setMappingAt(2, new Mapping<>(5, 4));
+    left.setMappingAt(3, new Mapping<>(null, 6));
 
-    final var right = new BLinkTreeNode<Integer>(size, true);
+    final var right = new BLinkTreeNode<Integer>(size, true, null, 0, metrics, (size + 1) / 2);
     right.size = size;
-    right.array[0] = new Mapping<>(7, 6);
-    right.array[1] = new Mapping<>(9, 8);
-    right.array[2] = new Mapping<>(11, 10);
-    right.array[3] = new Mapping<>(null, 12);
+    right.setMappingAt(0, new Mapping<>(7, 6));
+    right.setMappingAt(1, new Mapping<>(9, 8));
+    right.setMappingAt(2, new Mapping<>(11, 10));
+    right.setMappingAt(3, new Mapping<>(null, 12));
 
     right.left = left;
     left.right = right;
@@ -467,17 +471,17 @@ class BLinkTreeNodeTest {
   void testLeftTryTakeFromRightSiblingBothMinSize() {
     final var size = 4;
 
-    final var left = new BLinkTreeNode<Integer>(size, true);
+    final var left = new BLinkTreeNode<Integer>(size, true, null, 0, metrics, (size + 1) / 2);
     left.size = size - 1;
-    left.array[0] = new Mapping<>(1, 0);
-    left.array[1] = new Mapping<>(3, 2);
-    left.array[2] = new Mapping<>(null, 4);
+    left.setMappingAt(0, new Mapping<>(1, 0));
+    left.setMappingAt(1, new Mapping<>(3, 2));
+    left.setMappingAt(2, new Mapping<>(null, 4));
 
-    final var right = new BLinkTreeNode<Integer>(size, true);
+    final var right = new BLinkTreeNode<Integer>(size, true, null, 0, metrics, (size + 1) / 2);
     right.size = size - 1;
-    right.array[0] = new Mapping<>(7, 6);
-    right.array[1] = new Mapping<>(9, 8);
-    right.array[2] = new Mapping<>(null, 10);
+    right.setMappingAt(0, new Mapping<>(7, 6));
+    right.setMappingAt(1, new Mapping<>(9, 8));
+    right.setMappingAt(2, new Mapping<>(null, 10));
 
     right.left = left;
     left.right = right;
@@ -506,17 +510,17 @@ class BLinkTreeNodeTest {
   void testRightTryTakeFromLeftSiblingBothMinSize() {
     final var size = 4;
 
-    final var left = new BLinkTreeNode<Integer>(size, true);
+    final var left = new BLinkTreeNode<Integer>(size, true, null, 0, metrics, (size + 1) / 2);
     left.size = size - 1;
-    left.array[0] = new Mapping<>(1, 0);
-    left.array[1] = new Mapping<>(3, 2);
-    left.array[2] = new Mapping<>(null, 4);
+    left.setMappingAt(0, new Mapping<>(1, 0));
+    left.setMappingAt(1, new Mapping<>(3, 2));
+    left.setMappingAt(2, new Mapping<>(null, 4));
 
-    final var right = new BLinkTreeNode<Integer>(size, true);
+    final var right = new BLinkTreeNode<Integer>(size, true, null, 0, metrics, (size + 1) / 2);
     right.size = size - 1;
-    right.array[0] = new Mapping<>(7, 6);
-    right.array[1] = new Mapping<>(9, 8);
-    right.array[2] = new Mapping<>(null, 10);
+    right.setMappingAt(0, new Mapping<>(7, 6));
+    right.setMappingAt(1, new Mapping<>(9, 8));
+    right.setMappingAt(2, new Mapping<>(null, 10));
 
     right.left = left;
     left.right = right;
@@ -544,20 +548,20 @@ class BLinkTreeNodeTest {
   void testLeftTryTakeFromRightSibling() {
     final var size = 7;
 
-    final var left = new BLinkTreeNode<Integer>(size, true);
+    final var left = new BLinkTreeNode<Integer>(size, true, null, 0, metrics, (size + 1) / 2);
     left.size = 3;
-    left.array[0] = new Mapping<>(1, 0);
-    left.array[1] = new Mapping<>(3, 2);
-    left.array[2] = new Mapping<>(null, 4);
+    left.setMappingAt(0, new Mapping<>(1, 0));
+    left.setMappingAt(1, new Mapping<>(3, 2));
+    left.setMappingAt(2, new Mapping<>(null, 4));
 
-    final var right = new BLinkTreeNode<Integer>(size, true);
+    final var right = new BLinkTreeNode<Integer>(size, true, null, 0, metrics, (size + 1) / 2);
     right.size = 6;
-    right.array[0] = new Mapping<>(7, 6);
-    right.array[1] = new Mapping<>(9, 8);
-    right.array[2] = new Mapping<>(11, 10);
-    right.array[3] = new Mapping<>(13, 12);
-    right.array[4] = new Mapping<>(15, 14);
-    right.array[5] = new Mapping<>(null, 16);
+    right.setMappingAt(0, new Mapping<>(7, 6));
+    right.setMappingAt(1, new Mapping<>(9, 8));
+    right.setMappingAt(2, new Mapping<>(11, 10));
+    right.setMappingAt(3, new Mapping<>(13, 12));
+    right.setMappingAt(4, new Mapping<>(15, 14));
+    right.setMappingAt(5, new Mapping<>(null, 16));
 
     right.left = left;
     left.right = right;
@@ -591,19 +595,19 @@ class BLinkTreeNodeTest {
   void testMergeInternal() {
     final var size = 8;
 
-    final var left = new BLinkTreeNode<Integer>(size, true);
+    final var left = new BLinkTreeNode<Integer>(size, true, null, 0, metrics, (size + 1) / 2);
     left.size = 4;
-    left.array[0] = new Mapping<>(1, 0);
-    left.array[1] = new Mapping<>(3, 2);
-    left.array[2] = new Mapping<>(5, 4);
-    left.array[3] = new Mapping<>(null, 6);
+    left.setMappingAt(0, new Mapping<>(1, 0));
+    left.setMappingAt(1, new Mapping<>(3, 2));
+    left.setMappingAt(2, new Mapping<>(5, 4));
+    left.setMappingAt(3, new Mapping<>(null, 6));
 
-    final var right = new BLinkTreeNode<Integer>(size, true);
+    final var right = new BLinkTreeNode<Integer>(size, true, null, 0, metrics, (size + 1) / 2);
     right.size = 4;
-    right.array[0] = new Mapping<>(9, 8);
-    right.array[1] = new Mapping<>(11, 10);
-    right.array[2] = new Mapping<>(13, 12);
-    right.array[3] = new Mapping<>(null, 14);
+    right.setMappingAt(0, new Mapping<>(9, 8));
+    right.setMappingAt(1, new Mapping<>(11, 10));
+    right.setMappingAt(2, new Mapping<>(13, 12));
+    right.setMappingAt(3, new Mapping<>(null, 14));
 
     right.left = left;
     left.right = right;
@@ -633,19 +637,19 @@ class BLinkTreeNodeTest {
   void testMergeLeaf() {
     final var size = 8;
 
-    final var left = new BLinkTreeNode<Integer>(size, false);
+    final var left = new BLinkTreeNode<Integer>(size, false, null, 0, metrics, (size + 1) / 2);
     left.size = 4;
-    left.array[0] = new Mapping<>(1, 0);
-    left.array[1] = new Mapping<>(3, 2);
-    left.array[2] = new Mapping<>(5, 4);
-    left.array[3] = new Mapping<>(7, 6);
+    left.setMappingAt(0, new Mapping<>(1, 0));
+    left.setMappingAt(1, new Mapping<>(3, 2));
+    left.setMappingAt(2, new Mapping<>(5, 4));
+    left.setMappingAt(3, new Mapping<>(7, 6));
 
-    final var right = new BLinkTreeNode<Integer>(size, false);
+    final var right = new BLinkTreeNode<Integer>(size, false, null, 0, metrics, (size + 1) / 2);
     right.size = 4;
-    right.array[0] = new Mapping<>(9, 8);
-    right.array[1] = new Mapping<>(11, 10);
-    right.array[2] = new Mapping<>(13, 12);
-    right.array[3] = new Mapping<>(15, 14);
+    right.setMappingAt(0, new Mapping<>(9, 8));
+    right.setMappingAt(1, new Mapping<>(11, 10));
+    right.setMappingAt(2, new Mapping<>(13, 12));
+    right.setMappingAt(3, new Mapping<>(15, 14));
 
     right.left = left;
     left.right = right;
@@ -0,0 +1,878 @@
+package com.alistairpayn.blinktree;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Random;
+import java.util.Spliterator;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BLinkTreeTest {
+  static long allocatedBytesPerGet(BLinkTree<Integer, Integer> tree, Integer[] probes) {
+    final var threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    final var thread = Thread.currentThread().getId();
+    for (int round = 0; round < 20; ++round) { // warm up so the measured loop runs compiled code
+      for (var probe : probes) {
+        tree.get(probe);
+      }
+    }
+
+    final var start = threads.getThreadAllocatedBytes(thread);
+    final var overhead = threads.getThreadAllocatedBytes(thread) - start;
+    final var before = threads.getThreadAllocatedBytes(thread);
+    for (var probe : probes) {
+      tree.get(probe);
+    }
+    final var after = threads.getThreadAllocatedBytes(thread);
+    return (after - before - overhead) / probes.length;
+  }
+
+  static void verifyLevelLinks(BLinkTree<Integer, Integer> tree) {
+    var first = tree.root;
+    while (first != null) {
+      assertNull(first.left, "Leftmost node has a left sibling");
+      var count = 0;
+      for (var node = first; node != null; node = node.right) {
+        assertTrue(node.size > 0 || tree.size == 0, "Empty node in a level");
+        assertTrue(node.size < node.getMaxSize(), "Node is at split capacity");
+        if (node.right != null) {
+          assertSame(node, node.right.left, "Right sibling does not link back");
+        }
+        ++count;
+      }
+      assertTrue(count > 0);
+      first = first.isInternal ? first.getChildAt(0) : null;
+    }
+  }
+
+  static List<Mapping<Integer>> sortedMappings(int count) {
+    final var mappings = new ArrayList<Mapping<Integer>>();
+    for (int i = 0; i < count; ++i) {
+      mappings.add(new Mapping<>(i * 2, i));
+    }
+    return mappings;
+  }
+
+  @Test
+  void testPutPromotedNodeInternal() {
+
+  }
+
+  @Test
+  void testPutPromotedNodeLeaf() {
+
+  }
+
+  @Test
+  void testComparatorOrdersKeys() {
+    final var tree = new BLinkTree<Integer, Integer>(4, Comparator.reverseOrder());
+    for (int i = 0; i < 1000; ++i) {
+      tree.put(i, i * 10);
+    }
+    for (int i = 0; i < 1000; ++i) {
+      assertEquals(i * 10, tree.get(i));
+    }
+    assertNull(tree.get(1000));
+
+    final var iterator = tree.iterator();
+    for (int i = 999; i >= 0; --i) {
+      assertEquals(i, iterator.next().key);
+    }
+    assertFalse(iterator.hasNext());
+
+    for (int i = 0; i < 1000; i += 2) {
+      assertTrue(tree.remove(i));
+    }
+    assertEquals(500, tree.size);
+    for (int i = 0; i < 1000; ++i) {
+      assertEquals(i % 2 == 0 ? null : i * 10, tree.get(i));
+    }
+  }
+
+  @Test
+  void testComparatorDefinesKeyEquality() {
+    final var tree = new BLinkTree<String, Integer>(4, String.CASE_INSENSITIVE_ORDER);
+    tree.put("Key", 1);
+    tree.put("KEY", 2);
+    assertEquals(1, tree.size);
+    assertEquals(2, tree.get("key"));
+    assertTrue(tree.remove("kEy"));
+    assertNull(tree.get("Key"));
+  }
+
+  @Test
+  void testGetDoesNotAllocate() {
+    final var random = new Random(256);
+    final var probes = new Integer[100_000];
+    final var natural = new BLinkTree<Integer, Integer>(64);
+    final var comparator = new BLinkTree<Integer, Integer>(64, Comparator.naturalOrder());
+    for (int i = 0; i < probes.length; ++i) {
+      probes[i] = random.nextInt();
+      natural.put(probes[i], i);
+      comparator.put(probes[i], i);
+    }
+
+    assertEquals(0, allocatedBytesPerGet(natural, probes), "BLinkTree.get allocated on the read path");
+    assertEquals(0, allocatedBytesPerGet(comparator, probes), "BLinkTree.get allocated with a comparator");
+  }
+
+  @Test
+  void testBulkLoad() {
+    for (var nodeSize : new int[]{4, 5, 16, 101}) {
+      for (var fillFactor : new double[]{0.01, 0.7, 1.0}) {
+        for (var count : new int[]{0, 1, 3, 17, 1000, 5003}) {
+          final var tree = new BLinkTree<Integer, Integer>(nodeSize);
+          final var mappings = sortedMappings(count);
+          tree.bulkLoad(mappings.iterator(), fillFactor);
+
+          final var entries = new HashMap<Integer, Integer>();
+          mappings.forEach(mapping -> entries.put(mapping.key, (Integer) mapping.value));
+          BLinkTreeFuzzTest.verifyContainsEntries(tree, entries);
+          BLinkTreeFuzzTest.verifyLeafOrder(tree);
+          verifyLevelLinks(tree);
+        }
+      }
+    }
+  }
+
+  @Test
+  void testBulkLoadedTreeAcceptsUpdates() {
+    final var random = new Random(256);
+    final var tree = new BLinkTree<Integer, Integer>(8);
+    final var entries = new TreeMap<Integer, Integer>();
+    final var mappings = sortedMappings(2000);
+    mappings.forEach(mapping -> entries.put(mapping.key, (Integer) mapping.value));
+    tree.bulkLoad(mappings.iterator(), 1.0);
+
+    for (int i = 0; i < 20000; ++i) {
+      final var key = random.nextInt(8000);
+      if (random.nextBoolean()) {
+        tree.put(key, i);
+        entries.put(key, i);
+      } else {
+        assertEquals(entries.remove(key) != null, tree.remove(key));
+      }
+    }
+    BLinkTreeFuzzTest.verifyContainsEntries(tree, entries);
+    BLinkTreeFuzzTest.verifyLeafOrder(tree);
+    verifyLevelLinks(tree);
+  }
+
+  @Test
+  void testBulkLoadRejectsUnsortedInput() {
+    final var tree = new BLinkTree<Integer, Integer>(8);
+    final var mappings = List.of(new Mapping<>(1, 1), new Mapping<>(3, 3), new Mapping<>(2, 2));
+    assertThrows(RuntimeException.class, () -> tree.bulkLoad(mappings.iterator(), 1.0));
+
+    final var loaded = new BLinkTree<Integer, Integer>(8);
+    loaded.put(1, 1);
+    assertThrows(RuntimeException.class, () -> loaded.bulkLoad(sortedMappings(10).iterator(), 1.0));
+  }
+
+  @Test
+  void testScanMatchesSubMap() {
+    final var random = new Random(256);
+    final var tree = new BLinkTree<Integer, Integer>(6);
+    final var entries = new TreeMap<Integer, Integer>();
+    for (int i = 0; i < 3000; ++i) {
+      final var key = random.nextInt(10000);
+      tree.put(key, i);
+      entries.put(key, i);
+    }
+    for (int i = 0; i < 1000; ++i) { // leave some leaves sparse so scans cross near empty nodes
+      final var key = random.nextInt(10000);
+      assertEquals(entries.remove(key) != null, tree.remove(key));
+    }
+
+    for (int i = 0; i < 500; ++i) {
+      final Integer from = i % 10 == 0 ? null : random.nextInt(10200) - 100;
+      final Integer to = i % 7 == 0 ? null : random.nextInt(10200) - 100;
+      final var fromInclusive = random.nextBoolean();
+      final var toInclusive = random.nextBoolean();
+      if (from != null && to != null && from > to) {
+        continue;
+      }
+      final var tail = from == null ? entries : entries.tailMap(from, fromInclusive);
+      final var expected = to == null ? tail : tail.headMap(to, toInclusive);
+
+      final var iterator = tree.scan(from, fromInclusive, to, toInclusive);
+      for (var entry : expected.entrySet()) {
+        assertTrue(iterator.hasNext(), "Scan ended before key " + entry.getKey());
+        final var mapping = iterator.next();
+        assertEquals(entry.getKey(), mapping.key);
+        assertEquals(entry.getValue(), mapping.value);
+      }
+      assertFalse(iterator.hasNext(), "Scan returned keys beyond " + to);
+
+      final var visited = new ArrayList<Integer>();
+      tree.scan(from, fromInclusive, to, toInclusive, (key, value) -> {
+        assertEquals(expected.get(key), value);
+        visited.add(key);
+      });
+      assertEquals(new ArrayList<>(expected.keySet()), visited);
+    }
+  }
+
+  @Test
+  void testScanEmptyTree() {
+    final var tree = new BLinkTree<Integer, Integer>(4);
+    assertFalse(tree.scan(0, true, 10, true).hasNext());
+    assertFalse(tree.scan(null, true, null, true).hasNext());
+    tree.scan(null, true, null, true, (key, value) -> fail("Empty tree scanned key " + key));
+  }
+
+  @Test
+  void testDescendingScanMatchesDescendingSubMap() {
+    final var random = new Random(512);
+    final var tree = new BLinkTree<Integer, Integer>(5);
+    final var entries = new TreeMap<Integer, Integer>();
+    for (int i = 0; i < 3000; ++i) {
+      final var key = random.nextInt(10000);
+      tree.put(key, i);
+      entries.put(key, i);
+    }
+    for (int i = 0; i < 1000; ++i) {
+      final var key = random.nextInt(10000);
+      assertEquals(entries.remove(key) != null, tree.remove(key));
+    }
+    verifyLevelLinks(tree);
+
+    final var descending = tree.descendingIterator();
+    for (var entry : entries.descendingMap().entrySet()) {
+      assertEquals(entry.getKey(), descending.next().key);
+    }
+    assertFalse(descending.hasNext());
+
+    for (int i = 0; i < 500; ++i) {
+      final Integer from = i % 10 == 0 ? null : random.nextInt(10200) - 100;
+      final Integer to = i % 7 == 0 ? null : random.nextInt(10200) - 100;
+      final var fromInclusive = random.nextBoolean();
+      final var toInclusive = random.nextBoolean();
+      if (from != null && to != null && from < to) {
+        continue;
+      }
+      final var head = from == null ? entries.descendingMap() : entries.descendingMap().tailMap(from, fromInclusive);
+      final var expected = to == null ? head : head.headMap(to, toInclusive);
+
+      final var iterator = tree.descendingScan(from, fromInclusive, to, toInclusive);
+      for (var entry : expected.entrySet()) {
+        assertTrue(iterator.hasNext(), "Descending scan ended before key " + entry.getKey());
+        final var mapping = iterator.next();
+        assertEquals(entry.getKey(), mapping.key);
+        assertEquals(entry.getValue(), mapping.value);
+      }
+      assertFalse(iterator.hasNext(), "Descending scan returned keys beyond " + to);
+
+      final var visited = new ArrayList<Integer>();
+      tree.descendingScan(from, fromInclusive, to, toInclusive, (key, value) -> visited.add(key));
+      assertEquals(new ArrayList<>(expected.keySet()), visited);
+    }
+
+    final var empty = new BLinkTree<Integer, Integer>(4);
+    assertFalse(empty.descendingIterator().hasNext());
+    assertFalse(empty.descendingScan(10, true, 0, true).hasNext());
+  }
+
+  static byte[] writeSnapshot(BLinkTree<Integer, String> tree) {
+    final var bytes = new ByteArrayOutputStream();
+    tree.writeSnapshot(Channels.newChannel(bytes), Codec.INTEGER, Codec.STRING);
+    return bytes.toByteArray();
+  }
+
+  static BLinkTree<Integer, String> readSnapshot(byte[] snapshot, int nodeSize) {
+    final var tree = new BLinkTree<Integer, String>(nodeSize);
+    tree.readSnapshot(Channels.newChannel(new ByteArrayInputStream(snapshot)), Codec.INTEGER, Codec.STRING);
+    return tree;
+  }
+
+  @Test
+  void testSnapshotRoundTrip() {
+    final var random = new Random(256);
+    for (var count : new int[]{0, 1, 100, 200_000}) {
+      final var tree = new BLinkTree<Integer, String>(16);
+      final var entries = new HashMap<Integer, String>();
+      for (int i = 0; i < count; ++i) {
+        final var key = random.nextInt();
+        tree.put(key, "value " + i);
+        entries.put(key, "value " + i);
+      }
+      for (var key : new int[]{Integer.MIN_VALUE, 0, 1, Integer.MAX_VALUE}) { // ordinary entries around a large one
+        tree.put(key, "value " + key);
+        entries.put(key, "value " + key);
+      }
+      tree.put(1 << 30, "x".repeat(3 << 20)); // an entry larger than a snapshot block
+      entries.put(1 << 30, "x".repeat(3 << 20));
+
+      final var restored = readSnapshot(writeSnapshot(tree), 32);
+      BLinkTreeFuzzTest.verifyContainsEntries(restored, entries);
+      BLinkTreeFuzzTest.verifyLeafOrder(restored);
+    }
+  }
+
+  @Test
+  void testSnapshotRejectsDamage() {
+    final var tree = new BLinkTree<Integer, String>(16);
+    for (int i = 0; i < 10_000; ++i) {
+      tree.put(i, "value " + i);
+    }
+    final var snapshot = writeSnapshot(tree);
+
+    assertThrows(RuntimeException.class, () -> readSnapshot(Arrays.copyOf(snapshot, snapshot.length - 10), 16));
+    final var corrupt = snapshot.clone();
+    corrupt[corrupt.length / 2] ^= 1;
+    assertThrows(RuntimeException.class, () -> readSnapshot(corrupt, 16));
+    assertThrows(RuntimeException.class, () -> readSnapshot(new byte[64], 16));
+
+    final var undercounted = snapshot.clone();
+    ByteBuffer.wrap(undercounted).putLong(Long.BYTES, tree.size - 1);
+    assertThrows(RuntimeException.class, () -> readSnapshot(undercounted, 16));
+    assertThrows(RuntimeException.class, () -> readSnapshot(Arrays.copyOf(snapshot, snapshot.length + 1), 16));
+    final var oversized = snapshot.clone();
+    ByteBuffer.wrap(oversized).putInt(Snapshot.HEADER, Integer.MAX_VALUE);
+    assertThrows(RuntimeException.class, () -> readSnapshot(oversized, 16));
+  }
+
+  @Test
+  void testSnapshotBoundsBlockLengthByFileSize(@TempDir Path directory) throws IOException {
+    final var tree = new BLinkTree<Integer, String>(16);
+    tree.put(1, "x".repeat(Snapshot.BLOCK_BYTES)); // a single entry block larger than BLOCK_BYTES
+    final var snapshot = writeSnapshot(tree);
+    ByteBuffer.wrap(snapshot).putInt(Snapshot.HEADER, Integer.MAX_VALUE - 16);
+    final var file = directory.resolve("snapshot");
+    Files.write(file, snapshot);
+    try (var channel = FileChannel.open(file)) {
+      final var restored = new BLinkTree<Integer, String>(16);
+      assertThrows(RuntimeException.class, () -> restored.readSnapshot(channel, Codec.INTEGER, Codec.STRING));
+    }
+  }
+
+  static void verifySnapshot(BLinkTreeSnapshot<Integer, Integer> snapshot, TreeMap<Integer, Integer> entries) {
+    assertEquals(entries.size(), snapshot.size());
+    entries.forEach((key, value) -> assertEquals(value, snapshot.get(key), "Snapshot lost key " + key));
+    final var iterator = snapshot.iterator();
+    for (var entry : entries.entrySet()) {
+      final var mapping = iterator.next();
+      assertEquals(entry.getKey(), mapping.key);
+      assertEquals(entry.getValue(), mapping.value);
+    }
+    assertFalse(iterator.hasNext(), "Snapshot has entries written after it was taken");
+  }
+
+  @Test
+  void testSnapshotsStayFrozen() {
+    final var random = new Random(256);
+    final var tree = new BLinkTree<Integer, Integer>(5);
+    final var entries = new TreeMap<Integer, Integer>();
+    final var snapshots = new ArrayList<BLinkTreeSnapshot<Integer, Integer>>();
+    final var expected = new ArrayList<TreeMap<Integer, Integer>>();
+
+    for (int round = 0; round < 20; ++round) {
+      for (int i = 0; i < 1000; ++i) {
+        final var key = random.nextInt(3000);
+        if (random.nextInt(3) == 0) {
+          assertEquals(entries.remove(key) != null, tree.remove(key));
+        } else {
+          tree.put(key, round * 1000 + i);
+          entries.put(key, round * 1000 + i);
+        }
+      }
+      snapshots.add(tree.snapshot());
+      expected.add(new TreeMap<>(entries));
+    }
+
+    for (int i = 0; i < snapshots.size(); ++i) {
+      verifySnapshot(snapshots.get(i), expected.get(i));
+    }
+    BLinkTreeFuzzTest.verifyContainsEntries(tree, entries);
+    BLinkTreeFuzzTest.verifyLeafOrder(tree);
+    verifyLevelLinks(tree);
+
+    final var snapshot = snapshots.get(10);
+    final var frozen = expected.get(10);
+    for (int i = 0; i < 200; ++i) {
+      final var from = random.nextInt(3200) - 100;
+      final var to = from + random.nextInt(500);
+      final var visited = new ArrayList<Integer>();
+      snapshot.scan(from, i % 2 == 0, to, i % 3 == 0, (key, value) -> visited.add(key));
+      assertEquals(new ArrayList<>(frozen.subMap(from, i % 2 == 0, to, i % 3 == 0).keySet()), visited);
+    }
+  }
+
+  @Test
+  void testSnapshotScanWhileWriting() throws InterruptedException {
+    final var tree = new BLinkTree<Integer, Integer>(8);
+    final var entries = new TreeMap<Integer, Integer>();
+    for (int i = 0; i < 100_000; ++i) {
+      tree.put(i, i);
+      entries.put(i, i);
+    }
+    final var snapshot = tree.snapshot();
+    final var failure = new Throwable[1];
+    final var reader = new Thread(() -> {
+      try {
+        for (int round = 0; round < 5; ++round) {
+          verifySnapshot(snapshot, entries);
+        }
+      } catch (Throwable e) {
+        failure[0] = e;
+      }
+    });
+    reader.start();
+
+    final var random = new Random(256);
+    for (int i = 0; i < 200_000; ++i) {
+      final var key = random.nextInt(200_000);
+      if (random.nextBoolean()) {
+        tree.remove(key);
+      } else {
+        tree.put(key, -key);
+      }
+    }
+    reader.join();
+    assertNull(failure[0], () -> "Snapshot changed under a concurrent scan: " + failure[0]);
+  }
+
+  @Test
+  void testPutAllMatchesPut() {
+    final var random = new Random(256);
+    for (var nodeSize : new int[]{4, 5, 16, 64}) {
+      final var tree = new BLinkTree<Integer, Integer>(nodeSize);
+      final var entries = new TreeMap<Integer, Integer>();
+      for (int round = 0; round < 200; ++round) {
+        final var batch = new TreeMap<Integer, Integer>();
+        final var clustered = random.nextBoolean();
+        final var base = random.nextInt(100_000);
+        for (int i = random.nextInt(1000); i > 0; --i) {
+          final var key = clustered ? base + random.nextInt(2000) : random.nextInt(100_000);
+          batch.put(key, round * 1000 + i);
+        }
+        if (round % 10 == 0) {
+          for (int i = 0; i < 200; ++i) { // mix in removes so batches land on sparse leaves
+            final var key = random.nextInt(100_000);
+            assertEquals(entries.remove(key) != null, tree.remove(key));
+          }
+        }
+
+        tree.putAll(batch.keySet().toArray(Integer[]::new), batch.values().toArray(Integer[]::new));
+        entries.putAll(batch);
+      }
+      BLinkTreeFuzzTest.verifyContainsEntries(tree, entries);
+      BLinkTreeFuzzTest.verifyLeafOrder(tree);
+      verifyLevelLinks(tree);
+    }
+  }
+
+  @Test
+  void testPutAllRejectsUnsortedBatch() {
+    final var tree = new BLinkTree<Integer, Integer>(8);
+    assertThrows(RuntimeException.class, () -> tree.putAll(new Integer[]{1, 3, 2}, new Integer[]{1, 3, 2}));
+    assertThrows(RuntimeException.class, () -> tree.putAll(new Integer[]{1, 1}, new Integer[]{1, 1}));
+    assertThrows(RuntimeException.class, () -> tree.putAll(new Integer[]{1, 2}, new Integer[]{1}));
+    assertEquals(0, tree.size);
+  }
+
+  @Test
+  void testGetAllMatchesGet() {
+    final var random = new Random(256);
+    for (var nodeSize : new int[]{4, 5, 16, 64}) {
+      final var tree = new BLinkTree<Integer, Integer>(nodeSize);
+      for (int i = 0; i < 20_000; ++i) {
+        final var key = random.nextInt(50_000);
+        tree.put(key, -key);
+      }
+
+      for (int round = 0; round < 100; ++round) {
+        final var keys = new Integer[random.nextInt(600)];
+        var previous = random.nextInt(50_000);
+        for (int i = 0; i < keys.length; ++i) { // scattered or clustered keys, repeats and misses included
+          keys[i] = round % 2 == 0 ? random.nextInt(60_000) : previous + random.nextInt(8) - 2;
+          previous = keys[i];
+        }
+        if (round % 4 == 0) {
+          Arrays.sort(keys);
+        }
+
+        final var out = new Integer[keys.length];
+        tree.getAll(keys, out);
+        for (int i = 0; i < keys.length; ++i) {
+          assertEquals(tree.get(keys[i]), out[i]);
+        }
+      }
+    }
+  }
+
+  @Test
+  void testGetAllOnSmallTrees() {
+    final var tree = new BLinkTree<Integer, Integer>(4);
+    final var out = new Integer[2];
+    tree.getAll(new Integer[]{1, 2}, out);
+    assertArrayEquals(new Integer[]{null, null}, out);
+
+    tree.put(2, 20);
+    tree.getAll(new Integer[]{1, 2}, out);
+    assertArrayEquals(new Integer[]{null, 20}, out);
+    tree.getAll(new Integer[0], new Integer[0]);
+    assertThrows(RuntimeException.class, () -> tree.getAll(new Integer[]{1, 2}, new Integer[1]));
+  }
+
+  static String hierarchicalKey(final Random random) {
+    return String.format("tenant-%03d/entity-%05d/%013d", random.nextInt(4), random.nextInt(500),
+        random.nextInt(1_000_000));
+  }
+
+  // every separator lies above each key left of it and at or below each key right of it
+  static int verifySeparators(final BLinkTreeNode<String> node, final String lower, final String upper) {
+    var length = 0;
+    for (int i = 0; i < node.size; ++i) {
+      if (node.isInternal) {
+        final var low = i == 0 ? lower : node.getKeyAt(i - 1);
+        final var high = i == node.size - 1 ? upper : node.getKeyAt(i);
+        length += verifySeparators(node.getChildAt(i), low, high);
+        length += i < node.size - 1 ? node.getKeyAt(i).length() : 0;
+      } else {
+        assertTrue(lower == null || lower.compareTo(node.getKeyAt(i)) <= 0);
+        assertTrue(upper == null || node.getKeyAt(i).compareTo(upper) < 0);
+      }
+    }
+    return length;
+  }
+
+  @Test
+  void testStringSeparatorsAreTruncated() {
+    final var random = new Random(256);
+    final var tree = new BLinkTree<String, Integer>(16);
+    final var entries = new TreeMap<String, Integer>();
+    for (int i = 0; i < 50_000; ++i) {
+      if (i % 4 == 3) { // removes merge and redistribute leaves, choosing new separators
+        assertTrue(tree.remove(entries.pollFirstEntry().getKey()));
+      } else {
+        final var key = hierarchicalKey(random);
+        tree.put(key, i);
+        entries.put(key, i);
+      }
+    }
+
+    assertEquals(entries.size(), tree.size);
+    entries.forEach((key, value) -> assertEquals(value, tree.get(key)));
+    final var iterator = tree.iterator();
+    for (var entry : entries.entrySet()) {
+      assertEquals(entry.getKey(), iterator.next().key);
+    }
+
+    var separators = 0;
+    for (var node = tree.root; node.isInternal; node = node.getChildAt(0)) {
+      for (var level = node; level != null; level = level.right) {
+        separators += level.size - 1;
+      }
+    }
+    final var length = verifySeparators(tree.root, null, null);
+    assertTrue(length < separators * (hierarchicalKey(random).length() - 4), "separators average " + length / separators);
+  }
+
+  @Test
+  void testStringSeparatorsOfBulkLoad() {
+    final var random = new Random(256);
+    final var keys = new TreeMap<String, Integer>();
+    for (int i = 0; i < 20_000; ++i) {
+      keys.put(hierarchicalKey(random), i);
+    }
+    final var tree = new BLinkTree<String, Integer>(16);
+    tree.bulkLoad(keys.entrySet().stream().map(entry -> new Mapping<>(entry.getKey(), (Object) entry.getValue()))
+        .iterator(), 1.0);
+    verifySeparators(tree.root, null, null);
+    keys.forEach((key, value) -> assertEquals(value, tree.get(key)));
+
+    // under a comparator the separators are whole keys, since a prefix need not order the same way
+    final var reversed = new BLinkTree<String, Integer>(16, Comparator.reverseOrder());
+    keys.forEach(reversed::put);
+    keys.forEach((key, value) -> assertEquals(value, reversed.get(key)));
+    for (int i = 0; i < reversed.root.size - 1; ++i) {
+      assertTrue(keys.containsKey(reversed.root.getKeyAt(i)));
+    }
+  }
+
+  // splits recursively down to single leaves, collecting the parts in key order
+  static void splitFully(final Spliterator<Mapping<Integer>> spliterator,
+                         final List<Spliterator<Mapping<Integer>>> parts) {
+    final var prefix = spliterator.trySplit();
+    if (prefix == null) {
+      parts.add(spliterator);
+      return;
+    }
+    splitFully(prefix, parts);
+    splitFully(spliterator, parts);
+  }
+
+  @Test
+  void testSpliteratorPartsCoverTheTree() {
+    for (var nodeSize : new int[]{4, 5, 16}) {
+      for (var count : new int[]{0, 1, 3, 100, 10_000}) {
+        final var tree = new BLinkTree<Integer, Integer>(nodeSize);
+        final var random = new Random(count);
+        final var entries = new TreeMap<Integer, Integer>();
+        while (entries.size() < count) {
+          final var key = random.nextInt();
+          tree.put(key, key);
+          entries.put(key, key);
+        }
+
+        final var spliterator = tree.spliterator();
+        assertTrue(spliterator.hasCharacteristics(Spliterator.SIZED | Spliterator.SORTED | Spliterator.ORDERED
+            | Spliterator.DISTINCT));
+        assertEquals(count, spliterator.getExactSizeIfKnown());
+        assertNull(spliterator.getComparator());
+
+        final var parts = new ArrayList<Spliterator<Mapping<Integer>>>();
+        splitFully(spliterator, parts);
+        long estimated = 0;
+        final var keys = new ArrayList<Integer>();
+        for (var part : parts) {
+          estimated += part.estimateSize();
+          if (part.tryAdvance(mapping -> keys.add(mapping.key))) {
+            part.forEachRemaining(mapping -> keys.add(mapping.key));
+          }
+          assertFalse(part.tryAdvance(mapping -> fail("Spliterator part is exhausted")));
+        }
+        assertEquals(count, estimated);
+        assertEquals(new ArrayList<>(entries.keySet()), keys);
+        if (count >= 10_000) {
+          assertTrue(parts.size() > 100, "Spliterator split into only " + parts.size() + " parts");
+        }
+      }
+    }
+  }
+
+  @Test
+  void testParallelStream() {
+    final var tree = new BLinkTree<Integer, Integer>(16, Comparator.reverseOrder());
+    for (int i = 0; i < 100_000; ++i) {
+      tree.put(i, i);
+    }
+
+    assertEquals(100_000L * 99_999 / 2, tree.stream().parallel().mapToLong(mapping -> mapping.key).sum());
+    final var keys = tree.stream().parallel().map(mapping -> mapping.key).toList();
+    assertEquals(100_000, keys.size());
+    for (int i = 0; i < keys.size(); ++i) {
+      assertEquals(99_999 - i, keys.get(i));
+    }
+    assertEquals(99_999, tree.stream().parallel().sorted(tree.spliterator().getComparator()).findFirst().get().key);
+  }
+
+  @Test
+  void testBuildParallelMatchesPut() {
+    final var pool = new ForkJoinPool(4);
+    try {
+      for (var nodeSize : new int[]{4, 5, 16, 101}) {
+        for (var fillFactor : new double[]{0.01, 0.7, 1.0}) {
+          for (var count : new int[]{0, 1, 3, 17, 1000, 50_003}) {
+            final var random = new Random(count);
+            final var mappings = new ArrayList<Mapping<Integer>>();
+            final var entries = new HashMap<Integer, Integer>();
+            for (int i = 0; i < count; ++i) { // unsorted with repeated keys, the last mapping of a key wins
+              final var key = random.nextInt(count);
+              mappings.add(new Mapping<>(key, i));
+              entries.put(key, i);
+            }
+
+            final var tree = new BLinkTree<Integer, Integer>(nodeSize);
+            tree.buildParallel(mappings, fillFactor, pool);
+            BLinkTreeFuzzTest.verifyContainsEntries(tree, entries);
+            BLinkTreeFuzzTest.verifyLeafOrder(tree);
+            verifyLevelLinks(tree);
+          }
+        }
+      }
+    } finally {
+      pool.shutdown();
+    }
+  }
+
+  @Test
+  @SuppressWarnings("unchecked")
+  void testMergeSortIsStableOnItsPool() {
+    final var random = new Random(256);
+    final var mappings = new Mapping[100_000];
+    for (int i = 0; i < mappings.length; ++i) {
+      mappings[i] = new Mapping<>(random.nextInt(1_000), i);
+    }
+    final var pool = new ForkJoinPool(4);
+    try {
+      MergeSort.<Mapping<Integer>>sort(mappings, (a, b) -> a.key.compareTo(b.key), pool);
+    } finally {
+      pool.shutdown();
+    }
+    for (int i = 1; i < mappings.length; ++i) {
+      final var cmp = ((Integer) mappings[i - 1].key).compareTo((Integer) mappings[i].key);
+      assertTrue(cmp < 0 || cmp == 0 && (int) mappings[i - 1].value < (int) mappings[i].value,
+          "Mappings out of order at " + i);
+    }
+  }
+
+  @Test
+  void testParallelBuiltTreeAcceptsUpdates() {
+    final var random = new Random(256);
+    final var mappings = new ArrayList<Mapping<Integer>>();
+    final var entries = new TreeMap<Integer, Integer>();
+    for (int i = 0; i < 20_000; ++i) {
+      final var key = random.nextInt(40_000);
+      mappings.add(new Mapping<>(key, key));
+      entries.put(key, key);
+    }
+    final var tree = new BLinkTree<Integer, Integer>(8);
+    tree.buildParallel(mappings, ForkJoinPool.commonPool());
+    assertThrows(RuntimeException.class, () -> tree.buildParallel(mappings, ForkJoinPool.commonPool()));
+
+    for (int i = 0; i < 20_000; ++i) {
+      final var key = random.nextInt(40_000);
+      if (random.nextBoolean()) {
+        tree.put(key, -key);
+        entries.put(key, -key);
+      } else {
+        assertEquals(entries.remove(key) != null, tree.remove(key));
+      }
+    }
+    BLinkTreeFuzzTest.verifyContainsEntries(tree, entries);
+    verifyLevelLinks(tree);
+  }
+
+  static void verifyStats(final BLinkTree<Integer, Integer> tree, final BLinkTreeStats stats) {
+    assertEquals(tree.size, stats.getSize());
+    assertEquals(BLinkTreeMetrics.level(tree.root) + 1, stats.getHeight());
+    assertEquals(1, stats.getLevel(stats.getHeight() - 1).getNodes());
+    assertEquals(tree.size, stats.getLevel(0).getEntries());
+    for (int level = 1; level < stats.getHeight(); ++level) { // each internal entry is a child on the level below
+      assertEquals(stats.getLevel(level - 1).getNodes(), stats.getLevel(level).getEntries());
+    }
+    for (int level = 0; level < stats.getHeight(); ++level) {
+      assertEquals(stats.getLevel(level).getNodes(), Arrays.stream(stats.getLevel(level).getHistogram()).sum());
+    }
+
+    var leaves = 0;
+    for (var leaf = tree.root.findLeaf(Integer.MIN_VALUE); leaf != null; leaf = leaf.right) {
+      ++leaves;
+    }
+    assertEquals(leaves, stats.getLeafChainLength());
+    assertTrue(stats.getRetainedBytes() > 16L * tree.size);
+  }
+
+  @Test
+  void testStatsDescribeTheLevels() {
+    final var random = new Random(256);
+    final var tree = new BLinkTree<Integer, Integer>(16);
+    for (int i = 0; i < 100_000; ++i) {
+      tree.put(random.nextInt(), i);
+    }
+    final var full = tree.stats();
+    verifyStats(tree, full);
+    assertTrue(full.getHeight() >= 4);
+    assertEquals(0, full.getLevel(0).getUnderfull());
+
+    final var keys = tree.stream().map(mapping -> mapping.key).toList();
+    for (int i = 0; i < keys.size(); ++i) {
+      if (i % 10 != 0) {
+        tree.remove(keys.get(i));
+      }
+    }
+    final var sparse = tree.stats();
+    verifyStats(tree, sparse);
+    assertTrue(sparse.getLevel(0).getNodes() < full.getLevel(0).getNodes() / 4);
+    assertTrue(sparse.getRetainedBytes() < full.getRetainedBytes() / 4);
+  }
+
+  @Test
+  void testStatsAsyncReadsASnapshot() throws Exception {
+    final var tree = new BLinkTree<Integer, Integer>(8);
+    for (int i = 0; i < 10_000; ++i) {
+      tree.put(i, i);
+    }
+    final var executor = Executors.newSingleThreadExecutor();
+    try {
+      final var future = tree.statsAsync(executor);
+      for (int i = 10_000; i < 50_000; ++i) { // the writer carries on while the snapshot is walked
+        tree.put(i, i);
+      }
+      final var stats = future.get();
+      assertEquals(10_000, stats.getSize());
+      assertEquals(10_000, stats.getLevel(0).getEntries());
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  @Test
+  void testSeparateLeafAndInternalSizes() {
+    for (var sizes : new NodeSizes[]{new NodeSizes(64, 4), new NodeSizes(4, 64), new NodeSizes(1, 5, 2, 9),
+        new NodeSizes(12, 24, 3, 8)}) {
+      final var random = new Random(256);
+      final var tree = new BLinkTree<Integer, Integer>(sizes);
+      final var entries = new TreeMap<Integer, Integer>();
+      for (int i = 0; i < 50_000; ++i) {
+        final var key = random.nextInt(20_000);
+        if (random.nextInt(10) < 6) {
+          tree.put(key, i);
+          entries.put(key, i);
+        } else {
+          assertEquals(entries.remove(key) != null, tree.remove(key));
+        }
+      }
+      BLinkTreeFuzzTest.verifyContainsEntries(tree, entries);
+      verifyLevelLinks(tree);
+
+      for (var level = tree.root; level != null; level = level.isInternal ? level.getChildAt(0) : null) {
+        for (var node = level; node != null; node = node.right) {
+          assertEquals(node.isInternal ? sizes.getInternalMaxSize() : sizes.getLeafMaxSize(), node.getMaxSize());
+          assertEquals(node.isInternal ? sizes.getInternalMinSize() : sizes.getLeafMinSize(), node.getMinSize());
+        }
+      }
+      final var stats = tree.stats();
+      for (int level = 0; level < stats.getHeight(); ++level) { // removes merged every node that fell below minSize
+        assertEquals(0, stats.getLevel(level).getUnderfull(), sizes + " level " + level);
+      }
+    }
+  }
+
+  @Test
+  void testNodeSizesRejectInvalidMinimums() {
+    assertThrows(RuntimeException.class, () -> new NodeSizes(3, 64));
+    assertThrows(RuntimeException.class, () -> new NodeSizes(0, 8, 2, 8));
+    assertThrows(RuntimeException.class, () -> new NodeSizes(5, 8, 2, 8));
+    assertThrows(RuntimeException.class, () -> new NodeSizes(4, 8, 1, 8));
+    assertThrows(RuntimeException.class, () -> new NodeSizes(4, 8, 5, 8));
+    assertThrows(RuntimeException.class, () -> new BLinkTree<Integer, Integer>(3, 5));
+  }
+
+  @Test
+  void testTunePicksCandidateSizes() {
+    final var random = new Random(256);
+    final var sample = new ArrayList<Integer>();
+    for (int i = 0; i < 20_000; ++i) {
+      sample.add(random.nextInt(100_000));
+    }
+
+    final var sizes = NodeSizes.tune(sample, 1 << 20);
+    assertTrue(Arrays.stream(NodeSizes.LEAF_CANDIDATES).anyMatch(size -> size == sizes.getLeafMaxSize()));
+    assertTrue(Arrays.stream(NodeSizes.INTERNAL_CANDIDATES).anyMatch(size -> size == sizes.getInternalMaxSize()));
+
+    // a cache too small for any internal level leaves only the smallest fanout
+    assertEquals(NodeSizes.INTERNAL_CANDIDATES[0], NodeSizes.tune(sample, 1).getInternalMaxSize());
+    assertTrue(NodeSizes.estimateInternalBytes(1_000_000, 64, 8) > NodeSizes.estimateInternalBytes(1_000_000, 64, 64));
+  }
+}
@@ -0,0 +1,184 @@
+package com.alistairpayn.blinktree;
+
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestFactory;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BytesBLinkTreeTest {
+  static TreeMap<byte[], Integer> newEntries() {
+    return new TreeMap<>(Arrays::compareUnsigned);
+  }
+
+  static void verifyContainsEntries(BytesBLinkTree<Integer> tree, TreeMap<byte[], Integer> entries) {
+    assertEquals(entries.size(), tree.size, "Incorrect BytesBLinkTree size");
+    entries.forEach((key, value) -> assertEquals(value, tree.get(key), "Key missing from BytesBLinkTree "
+        + Arrays.toString(key)));
+
+    final var iterator = tree.iterator();
+    for (var entry : entries.entrySet()) {
+      assertTrue(iterator.hasNext(), "BytesBLinkTree leaf chain ended before key " + Arrays.toString(entry.getKey()));
+      final var next = iterator.next();
+      assertArrayEquals(entry.getKey(), next.getKey());
+      assertEquals(entry.getValue(), next.getValue());
+    }
+    assertFalse(iterator.hasNext(), "BytesBLinkTree leaf chain has extra entries");
+
+    final var keys = new ArrayList<byte[]>();
+    tree.forEach((key, value) -> keys.add(key));
+    assertEquals(entries.size(), keys.size());
+  }
+
+  // composite keys of a shared tenant prefix, a short id and a variable tail, so keys collide in their first 8 bytes
+  static byte[] compositeKey(final Random rnd, final int range) {
+    final var tail = new byte[rnd.nextInt(4)];
+    rnd.nextBytes(tail);
+    return ByteBuffer.allocate(6 + Integer.BYTES + tail.length)
+        .put("tenant".getBytes())
+        .putInt(rnd.nextInt(range) - range / 2)
+        .put(tail)
+        .array();
+  }
+
+  static void testRandomPutRemove(long seed, int batchSize, int nodeSize) {
+    final var rnd = new Random(seed);
+    final var tree = new BytesBLinkTree<Integer>(nodeSize);
+    final var entries = newEntries();
+
+    for (int i = 0; i < batchSize; ++i) {
+      final var key = compositeKey(rnd, batchSize / 2);
+      if (rnd.nextInt(10) < 6) {
+        final int value = rnd.nextInt();
+        tree.put(key, value);
+        entries.put(key, value);
+      } else {
+        assertEquals(entries.remove(key) != null, tree.remove(key), "Incorrect remove result");
+        assertNull(tree.get(key), "Key not deleted from BytesBLinkTree " + Arrays.toString(key));
+      }
+    }
+    verifyContainsEntries(tree, entries);
+
+    for (var key : entries.keySet().toArray(byte[][]::new)) {
+      assertTrue(tree.remove(key.clone()), "Could not find key to remove " + Arrays.toString(key));
+      entries.remove(key);
+    }
+    verifyContainsEntries(tree, entries);
+    assertTrue(tree.isEmpty());
+  }
+
+  @Test
+  void testUnsignedLexicographicOrder() {
+    final var tree = new BytesBLinkTree<String>(4);
+    final byte[][] keys = {
+        {}, {0}, {0, 0}, {1}, {0x7f}, {(byte) 0x80}, {(byte) 0xff}, {(byte) 0xff, 0},
+        {1, 2, 3, 4, 5, 6, 7, 8}, {1, 2, 3, 4, 5, 6, 7, 8, 0}, {1, 2, 3, 4, 5, 6, 7, 8, (byte) 0x90}, {1, 2, 3, 4, 5, 6, 8}
+    };
+    for (var key : keys) {
+      tree.put(key, Arrays.toString(key));
+    }
+    for (var key : keys) {
+      assertEquals(Arrays.toString(key), tree.get(key.clone()));
+    }
+    assertNull(tree.get(new byte[]{2}));
+
+    final var iterator = tree.iterator();
+    var previous = iterator.next().getKey();
+    while (iterator.hasNext()) {
+      final var current = iterator.next().getKey();
+      assertTrue(Arrays.compareUnsigned(previous, current) < 0, "BytesBLinkTree keys are not ascending, previous "
+          + Arrays.toString(previous) + ", next " + Arrays.toString(current));
+      previous = current;
+    }
+  }
+
+  @Test
+  void testPrefixOrdersLikeKeys() {
+    final var rnd = new Random(256);
+    for (int i = 0; i < 100_000; ++i) {
+      final var a = new byte[rnd.nextInt(12)];
+      final var b = new byte[rnd.nextInt(12)];
+      rnd.nextBytes(a);
+      System.arraycopy(a, 0, b, 0, Math.min(a.length, rnd.nextInt(b.length + 1)));
+      final var cmp = Long.compareUnsigned(BytesBLinkTreeNode.prefix(a), BytesBLinkTreeNode.prefix(b));
+      if (cmp != 0) {
+        assertEquals(cmp, Integer.signum(Arrays.compareUnsigned(a, b)));
+      }
+    }
+  }
+
+  @Test
+  void testSeparatorsAreTruncated() {
+    final var rnd = new Random(256);
+    final var tree = new BytesBLinkTree<Integer>(8);
+    final var entries = newEntries();
+    for (int i = 0; i < 5_000; ++i) {
+      final var key = compositeKey(rnd, 1 << 20);
+      tree.put(key, i);
+      entries.put(key, i);
+    }
+    verifyContainsEntries(tree, entries);
+
+    for (var node = tree.root; node.isInternal; node = node.getChildAt(0)) {
+      for (var level = node; level != null; level = level.right) {
+        for (int i = 0; i < level.size - 1; ++i) {
+          assertTrue(level.keys[i].length <= 10, "separator " + Arrays.toString(level.keys[i]) + " not truncated");
+          assertEquals(BytesBLinkTreeNode.prefix(level.keys[i]), level.prefixes[i]);
+        }
+      }
+    }
+  }
+
+  @Test
+  void testMinSizeIsHonoured() {
+    assertThrows(RuntimeException.class, () -> new BytesBLinkTree<Integer>(0, 8));
+    assertThrows(RuntimeException.class, () -> new BytesBLinkTree<Integer>(5, 8));
+
+    for (var minSize : new int[]{1, 2, 8}) {
+      final var random = new Random(256);
+      final var tree = new BytesBLinkTree<Integer>(minSize, 16);
+      for (int i = 0; i < 20_000; ++i) {
+        final var key = compositeKey(random, 5_000);
+        if (random.nextInt(10) < 6) {
+          tree.put(key, i);
+        } else {
+          tree.remove(key);
+        }
+      }
+
+      for (var level = tree.root; level != null; level = level.isInternal ? level.getChildAt(0) : null) {
+        for (var node = level; node != null; node = node.right) {
+          assertEquals(node.isInternal ? Math.max(2, minSize) : minSize, node.getMinSize());
+          if (node != tree.root) { // removes merged every node that fell below minSize
+            assertTrue(node.size >= node.getMinSize(), "Node of " + node.size + " below minSize " + minSize);
+          }
+        }
+      }
+    }
+  }
+
+  @TestFactory
+  Stream<DynamicTest> fuzzTest() {
+    return Stream.generate(() -> ThreadLocalRandom.current().nextLong(-100000, 100000))
+        .limit(50)
+        .map(seed -> {
+          final var batchSize = ThreadLocalRandom.current().nextInt(100, 5000);
+          final var nodeSize = ThreadLocalRandom.current().nextInt(4, 100);
+          return DynamicTest.dynamicTest(
+              "Test random puts and removes"
+                  + ", seed " + seed
+                  + ", batchSize " + batchSize
+                  + ", nodeSize " + nodeSize,
+              () -> testRandomPutRemove(seed, batchSize, nodeSize)
+          );
+        });
+  }
+}
@@ -0,0 +1,209 @@
+package com.alistairpayn.blinktree;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ConcurrentBLinkTreeTest {
+  static <K extends Comparable<K>, V> void verifyLeafOrder(ConcurrentBLinkTree<K, V> tree, int expectedSize) {
+    final var iterator = tree.iterator();
+    int count = 0;
+    Mapping<K> prev = null;
+    while (iterator.hasNext()) {
+      final var cur = iterator.next();
+      if (prev != null) {
+        assertTrue(prev.key.compareTo(cur.key) < 0, "Leaf keys are not ascending, prev " + prev.key + ", next " + cur.key);
+      }
+      prev = cur;
+      ++count;
+    }
+    assertEquals(expectedSize, count, "Incorrect number of iterated entries");
+  }
+
+  static void runConcurrently(int threads, ThrowingIntConsumer task) throws InterruptedException {
+    final var start = new CountDownLatch(1);
+    final var failure = new AtomicReference<Throwable>();
+    final var workers = new ArrayList<Thread>();
+    for (int t = 0; t < threads; ++t) {
+      final var id = t;
+      final var worker = new Thread(() -> {
+        try {
+          start.await();
+          task.accept(id);
+        } catch (Throwable e) {
+          failure.compareAndSet(null, e);
+        }
+      });
+      worker.start();
+      workers.add(worker);
+    }
+    start.countDown();
+    for (var worker : workers) {
+      worker.join();
+    }
+    if (failure.get() != null) {
+      fail(failure.get());
+    }
+  }
+
+  interface ThrowingIntConsumer {
+    void accept(int value) throws Exception;
+  }
+
+  @Test
+  void testVersionLatchInvalidatesOptimisticReads() {
+    final var node = new ConcurrentBLinkTreeNode<Integer>(4, false, 0);
+    final var version = node.readVersion();
+    assertTrue(node.validate(version));
+
+    node.lock();
+    node.putLeaf(1, 10);
+    assertFalse(node.validate(version), "A locked node must fail validation");
+    node.unlock();
+
+    assertFalse(node.validate(version), "A modified node must fail validation");
+    final var next = node.readVersion();
+    assertNotEquals(version, next);
+    assertEquals(10, node.get(1));
+    assertTrue(node.validate(next), "Optimistic reads must not change the version");
+  }
+
+  @Test
+  void testFailedPutReleasesLatch() {
+    final var tree = new ConcurrentBLinkTree<Integer, Integer>(8);
+    tree.put(1, 10);
+    tree.put(2, 20);
+    assertThrows(NullPointerException.class, () -> tree.put(null, 0));
+
+    assertTimeoutPreemptively(Duration.ofSeconds(5), () -> {
+      assertEquals(10, tree.get(1));
+      tree.put(3, 30);
+      assertEquals(30, tree.get(3));
+    }, "A put that threw left its leaf latched");
+    assertEquals(3, tree.size());
+  }
+
+  @Test
+  void testSingleThreadedMatchesTreeMap() {
+    final var rnd = new Random(42);
+    final var tree = new ConcurrentBLinkTree<Integer, Integer>(5);
+    final var expected = new TreeMap<Integer, Integer>();
+
+    for (int i = 0; i < 20000; ++i) {
+      final var key = rnd.nextInt(2000);
+      if (rnd.nextInt(10) < 7) {
+        tree.put(key, i);
+        expected.put(key, i);
+      } else {
+        assertEquals(expected.remove(key) != null, tree.remove(key));
+      }
+    }
+
+    assertEquals(expected.size(), tree.size());
+    expected.forEach((key, value) -> assertEquals(value, tree.get(key)));
+    for (int key = 0; key < 2000; ++key) {
+      assertEquals(expected.get(key), tree.get(key));
+    }
+    verifyLeafOrder(tree, expected.size());
+  }
+
+  @Test
+  void testConcurrentDisjointInserts() throws InterruptedException {
+    final var threads = 8;
+    final var perThread = 20000;
+    final var tree = new ConcurrentBLinkTree<Integer, Integer>(8);
+
+    runConcurrently(threads, id -> {
+      final var keys = new ArrayList<Integer>();
+      for (int i = 0; i < perThread; ++i) {
+        keys.add(i * threads + id);
+      }
+      Collections.shuffle(keys, new Random(id));
+      for (var key : keys) {
+        tree.put(key, key * 10);
+      }
+    });
+
+    assertEquals(threads * perThread, tree.size());
+    for (int key = 0; key < threads * perThread; ++key) {
+      assertEquals(key * 10, tree.get(key), "Key missing from ConcurrentBLinkTree " + key);
+    }
+    verifyLeafOrder(tree, threads * perThread);
+  }
+
+  @Test
+  void testReadersObserveInsertedKeysDuringSplits() throws InterruptedException {
+    final var writers = 4;
+    final var perWriter = 20000;
+    final var tree = new ConcurrentBLinkTree<Integer, Integer>(4);
+    final var done = new AtomicBoolean();
+    final var inserted = ConcurrentHashMap.<Integer>newKeySet();
+
+    runConcurrently(writers * 2, id -> {
+      if (id < writers) {
+        for (int i = 0; i < perWriter; ++i) {
+          final var key = i * writers + id;
+          tree.put(key, key);
+          inserted.add(key);
+        }
+        done.set(true);
+      } else {
+        final var rnd = new Random(id);
+        while (!done.get()) {
+          for (int i = 0; i < 1000; ++i) {
+            final var key = rnd.nextInt(writers * perWriter);
+            final var wasInserted = inserted.contains(key);
+            final var found = tree.get(key);
+            if (found == null) {
+              assertFalse(wasInserted, "Reader lost key " + key + " while the tree split");
+            } else {
+              assertEquals(key, found);
+            }
+          }
+        }
+      }
+    });
+
+    verifyLeafOrder(tree, writers * perWriter);
+  }
+
+  @Test
+  void testConcurrentPutRemove() throws InterruptedException {
+    final var threads = 8;
+    final var range = 5000;
+    final var tree = new ConcurrentBLinkTree<Integer, Integer>(6);
+
+    runConcurrently(threads, id -> {
+      final var rnd = new Random(id);
+      for (int i = 0; i < 50000; ++i) {
+        final var key = rnd.nextInt(range) * threads + id; // each thread owns its keys so it can check its own view
+        if (rnd.nextBoolean()) {
+          tree.put(key, key);
+          assertEquals(key, tree.get(key));
+        } else {
+          tree.remove(key);
+          assertNull(tree.get(key));
+        }
+      }
+    });
+
+    int count = 0;
+    for (int key = 0; key < range * threads; ++key) {
+      if (tree.get(key) != null) {
+        ++count;
+      }
+    }
+    assertEquals(count, tree.size());
+    verifyLeafOrder(tree, count);
+  }
+}
@@ -0,0 +1,147 @@
+package com.alistairpayn.blinktree;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DurableBLinkTreeTest {
+  @TempDir
+  Path directory;
+
+  static void verifyContainsEntries(DurableBLinkTree<Long, String> tree, TreeMap<Long, String> entries) {
+    assertEquals(entries.size(), tree.size(), "Incorrect DurableBLinkTree size");
+    entries.forEach((key, value) -> assertEquals(value, tree.get(key), "Key missing from DurableBLinkTree " + key));
+    BLinkTreeFuzzTest.verifyLeafOrder(tree.tree);
+  }
+
+  static void randomUpdates(DurableBLinkTree<Long, String> tree, TreeMap<Long, String> entries, Random random,
+                            int count) {
+    for (int i = 0; i < count; ++i) {
+      final long key = random.nextInt(5000);
+      if (random.nextInt(4) == 0) {
+        assertEquals(entries.remove(key) != null, tree.remove(key));
+      } else {
+        tree.put(key, "value " + i);
+        entries.put(key, "value " + i);
+      }
+    }
+  }
+
+  DurableBLinkTree<Long, String> open() {
+    return new DurableBLinkTree<>(directory, 16, Codec.LONG, Codec.STRING);
+  }
+
+  @Test
+  void testReplayAfterReopen() {
+    final var random = new Random(256);
+    final var entries = new TreeMap<Long, String>();
+    try (var tree = open()) {
+      randomUpdates(tree, entries, random, 5000);
+    }
+    try (var tree = open()) {
+      verifyContainsEntries(tree, entries);
+      randomUpdates(tree, entries, random, 5000);
+    }
+    try (var tree = open()) {
+      verifyContainsEntries(tree, entries);
+    }
+  }
+
+  @Test
+  void testReplayOntoCheckpoint() {
+    final var random = new Random(512);
+    final var entries = new TreeMap<Long, String>();
+    try (var tree = open()) {
+      randomUpdates(tree, entries, random, 5000);
+      tree.checkpoint();
+      assertEquals(0, directory.resolve(DurableBLinkTree.LOG).toFile().length(), "Checkpoint did not empty the log");
+      randomUpdates(tree, entries, random, 2000);
+    }
+    try (var tree = open()) {
+      verifyContainsEntries(tree, entries);
+      tree.checkpoint();
+    }
+    try (var tree = open()) {
+      verifyContainsEntries(tree, entries);
+    }
+  }
+
+  @Test
+  void testCheckpointHoldsEntriesLargerThanABlock() {
+    final var entries = new TreeMap<Long, String>();
+    try (var tree = open()) {
+      for (long key = 0; key < 1000; ++key) {
+        final var value = key == 500 ? "x".repeat(2_000_000) : "value " + key; // a large entry between small ones
+        tree.put(key, value);
+        entries.put(key, value);
+      }
+      tree.checkpoint();
+    }
+    try (var tree = open()) {
+      verifyContainsEntries(tree, entries);
+    }
+  }
+
+  @Test
+  void testTornTailIsDiscarded() throws IOException {
+    final var entries = new TreeMap<Long, String>();
+    try (var tree = open()) {
+      for (long key = 0; key < 100; ++key) {
+        tree.put(key, "value " + key);
+        entries.put(key, "value " + key);
+      }
+    }
+    try (var channel = FileChannel.open(directory.resolve(DurableBLinkTree.LOG), StandardOpenOption.WRITE)) {
+      channel.truncate(channel.size() - 3); // the last put was cut short by a crash
+    }
+    entries.remove(99L);
+
+    try (var tree = open()) {
+      verifyContainsEntries(tree, entries);
+      tree.put(1000L, "after the crash");
+      entries.put(1000L, "after the crash");
+    }
+    try (var tree = open()) {
+      verifyContainsEntries(tree, entries);
+    }
+  }
+
+  @Test
+  void testConcurrentWritersAreDurable() throws InterruptedException {
+    final var entries = new ConcurrentHashMap<Long, String>();
+    try (var tree = open()) {
+      ConcurrentBLinkTreeTest.runConcurrently(8, id -> {
+        for (long i = 0; i < 500; ++i) {
+          final long key = id * 1000L + i;
+          tree.put(key, "value " + key);
+          entries.put(key, "value " + key);
+        }
+      });
+    }
+    try (var tree = open()) {
+      verifyContainsEntries(tree, new TreeMap<>(entries));
+    }
+  }
+
+  @Test
+  void testWritersShareOneForce() throws InterruptedException {
+    try (var log = new WriteAheadLog<>(directory.resolve(DurableBLinkTree.LOG), Codec.LONG, Codec.STRING)) {
+      final var sequences = new long[8];
+      for (int i = 0; i < sequences.length; ++i) {
+        sequences[i] = log.appendPut((long) i, "value " + i);
+      }
+      // whichever writer leads forces every record appended so far, the others find theirs durable or wait for it
+      ConcurrentBLinkTreeTest.runConcurrently(sequences.length, id -> log.sync(sequences[id]));
+      assertEquals(1, log.getSyncs(), "Writers waiting on the same batch forced the log again");
+    }
+  }
+}
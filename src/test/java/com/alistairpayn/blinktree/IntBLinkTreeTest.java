@@ -0,0 +1,148 @@
+package com.alistairpayn.blinktree;
+
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestFactory;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IntBLinkTreeTest {
+  static void verifyContainsEntries(IntBLinkTree<Integer> tree, TreeMap<Integer, Integer> entries) {
+    assertEquals(entries.size(), tree.size, "Incorrect IntBLinkTree size");
+    entries.forEach((key, value) -> assertEquals(value, tree.get(key), "Key missing from IntBLinkTree " + key));
+
+    final var iterator = tree.iterator();
+    for (var entry : entries.entrySet()) {
+      assertTrue(iterator.hasNext(), "IntBLinkTree leaf chain ended before key " + entry.getKey());
+      final var mapping = iterator.next();
+      assertEquals(entry.getKey(), mapping.key);
+      assertEquals(entry.getValue(), mapping.value);
+    }
+    assertFalse(iterator.hasNext(), "IntBLinkTree leaf chain has extra entries");
+  }
+
+  static void testRandomPutRemove(long seed, int batchSize, int nodeSize) {
+    final var rnd = new Random(seed);
+    final var tree = new IntBLinkTree<Integer>(nodeSize);
+    final var entries = new TreeMap<Integer, Integer>();
+
+    for (int i = 0; i < batchSize; ++i) {
+      final int key = rnd.nextInt(batchSize / 2) * 65_537 - batchSize * 16_000;
+      if (rnd.nextInt(10) < 6) {
+        final int value = rnd.nextInt();
+        tree.put(key, value);
+        entries.put(key, value);
+      } else {
+        assertEquals(entries.remove(key) != null, tree.remove(key), "Incorrect remove result for key " + key);
+        assertNull(tree.get(key), "Key not deleted from IntBLinkTree " + key);
+      }
+    }
+    verifyContainsEntries(tree, entries);
+
+    for (var key : entries.keySet().toArray(Integer[]::new)) {
+      assertTrue(tree.remove(key), "Could not find key to remove " + key);
+      entries.remove(key);
+    }
+    verifyContainsEntries(tree, entries);
+    assertTrue(tree.isEmpty());
+  }
+
+  @Test
+  void testNegativeAndExtremeKeys() {
+    final var tree = new IntBLinkTree<String>(4);
+    final int[] keys = {Integer.MIN_VALUE, -1, 0, 1, Integer.MAX_VALUE, Short.MAX_VALUE + 1, Short.MIN_VALUE - 1};
+    for (var key : keys) {
+      tree.put(key, Integer.toString(key));
+    }
+    for (var key : keys) {
+      assertEquals(Integer.toString(key), tree.get(key));
+    }
+    assertNull(tree.get(2));
+
+    final var iterator = tree.iterator();
+    int prev = iterator.next().key;
+    while (iterator.hasNext()) {
+      final int cur = iterator.next().key;
+      assertTrue(prev < cur, "IntBLinkTree keys are not ascending, prev " + prev + ", next " + cur);
+      prev = cur;
+    }
+  }
+
+  @Test
+  void testMinSizeIsHonoured() {
+    assertThrows(RuntimeException.class, () -> new IntBLinkTree<Integer>(0, 8));
+    assertThrows(RuntimeException.class, () -> new IntBLinkTree<Integer>(5, 8));
+
+    for (var minSize : new int[]{1, 2, 8}) {
+      final var random = new Random(256);
+      final var tree = new IntBLinkTree<Integer>(minSize, 16);
+      for (int i = 0; i < 20_000; ++i) {
+        final var key = random.nextInt(5_000);
+        if (random.nextInt(10) < 6) {
+          tree.put(key, null);
+        } else {
+          tree.remove(key);
+        }
+      }
+
+      for (var level = tree.root; level != null; level = level.isInternal ? level.getChildAt(0) : null) {
+        for (var node = level; node != null; node = node.right) {
+          assertEquals(node.isInternal ? Math.max(2, minSize) : minSize, node.getMinSize());
+          if (node != tree.root) { // removes merged every node that fell below minSize
+            assertTrue(node.size >= node.getMinSize(), "Node of " + node.size + " below minSize " + minSize);
+          }
+        }
+      }
+    }
+  }
+
+  @Test
+  void testVectorSearchMatchesBinarySearch() {
+    final var vectors = ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent(); // only under vectorTest
+    final var rnd = new Random(256);
+    for (int end = 0; end <= 300; ++end) {
+      final var keys = new int[end + 1];
+      for (int i = 0; i < end; ++i) {
+        keys[i] = rnd.nextInt(4 * end + 1) - 2 * end;
+      }
+      Arrays.sort(keys, 0, end);
+      final var distinct = Arrays.stream(keys, 0, end).distinct().toArray();
+      System.arraycopy(distinct, 0, keys, 0, distinct.length);
+      final var size = distinct.length;
+      for (int probe = 0; probe < 50; ++probe) {
+        final int key = probe % 2 == 0 && size > 0 ? keys[rnd.nextInt(size)] : rnd.nextInt(4 * end + 1) - 2 * end;
+        for (var inclusive : new boolean[]{false, true}) {
+          final var expected = KeySearch.binarySearch(keys, size, key, inclusive);
+          if (vectors) {
+            assertEquals(expected, VectorKeySearch.search(keys, size, key, inclusive), "Vector search of " + size
+                + " keys for " + key + (inclusive ? " at or below" : " below"));
+          }
+          assertEquals(expected, KeySearch.search(keys, size, key, inclusive));
+        }
+      }
+    }
+  }
+
+  @TestFactory
+  Stream<DynamicTest> fuzzTest() {
+    return Stream.generate(() -> ThreadLocalRandom.current().nextLong(-100000, 100000))
+        .limit(50)
+        .map(seed -> {
+          final var batchSize = ThreadLocalRandom.current().nextInt(100, 5000);
+          final var nodeSize = ThreadLocalRandom.current().nextInt(4, 100);
+          return DynamicTest.dynamicTest(
+              "Test random puts and removes"
+                  + ", seed " + seed
+                  + ", batchSize " + batchSize
+                  + ", nodeSize " + nodeSize,
+              () -> testRandomPutRemove(seed, batchSize, nodeSize)
+          );
+        });
+  }
+}
@@ -0,0 +1,148 @@
+package com.alistairpayn.blinktree;
+
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestFactory;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LongBLinkTreeTest {
+  static void verifyContainsEntries(LongBLinkTree<Long> tree, TreeMap<Long, Long> entries) {
+    assertEquals(entries.size(), tree.size, "Incorrect LongBLinkTree size");
+    entries.forEach((key, value) -> assertEquals(value, tree.get(key), "Key missing from LongBLinkTree " + key));
+
+    final var iterator = tree.iterator();
+    for (var entry : entries.entrySet()) {
+      assertTrue(iterator.hasNext(), "LongBLinkTree leaf chain ended before key " + entry.getKey());
+      final var mapping = iterator.next();
+      assertEquals(entry.getKey(), mapping.key);
+      assertEquals(entry.getValue(), mapping.value);
+    }
+    assertFalse(iterator.hasNext(), "LongBLinkTree leaf chain has extra entries");
+  }
+
+  static void testRandomPutRemove(long seed, int batchSize, int nodeSize) {
+    final var rnd = new Random(seed);
+    final var tree = new LongBLinkTree<Long>(nodeSize);
+    final var entries = new TreeMap<Long, Long>();
+
+    for (int i = 0; i < batchSize; ++i) {
+      final long key = rnd.nextInt(batchSize / 2) * 1_000_000_007L; // keys beyond the int range
+      if (rnd.nextInt(10) < 6) {
+        final long value = rnd.nextLong();
+        tree.put(key, value);
+        entries.put(key, value);
+      } else {
+        assertEquals(entries.remove(key) != null, tree.remove(key), "Incorrect remove result for key " + key);
+        assertNull(tree.get(key), "Key not deleted from LongBLinkTree " + key);
+      }
+    }
+    verifyContainsEntries(tree, entries);
+
+    for (var key : entries.keySet().toArray(Long[]::new)) {
+      assertTrue(tree.remove(key), "Could not find key to remove " + key);
+      entries.remove(key);
+    }
+    verifyContainsEntries(tree, entries);
+    assertTrue(tree.isEmpty());
+  }
+
+  @Test
+  void testNegativeAndExtremeKeys() {
+    final var tree = new LongBLinkTree<String>(4);
+    final long[] keys = {Long.MIN_VALUE, -1, 0, 1, Long.MAX_VALUE, Integer.MAX_VALUE + 1L, Integer.MIN_VALUE - 1L};
+    for (var key : keys) {
+      tree.put(key, Long.toString(key));
+    }
+    for (var key : keys) {
+      assertEquals(Long.toString(key), tree.get(key));
+    }
+    assertNull(tree.get(2));
+
+    final var iterator = tree.iterator();
+    long prev = iterator.next().key;
+    while (iterator.hasNext()) {
+      final long cur = iterator.next().key;
+      assertTrue(prev < cur, "LongBLinkTree keys are not ascending, prev " + prev + ", next " + cur);
+      prev = cur;
+    }
+  }
+
+  @Test
+  void testMinSizeIsHonoured() {
+    assertThrows(RuntimeException.class, () -> new LongBLinkTree<Long>(0, 8));
+    assertThrows(RuntimeException.class, () -> new LongBLinkTree<Long>(5, 8));
+
+    for (var minSize : new int[]{1, 2, 8}) {
+      final var random = new Random(256);
+      final var tree = new LongBLinkTree<Long>(minSize, 16);
+      for (int i = 0; i < 20_000; ++i) {
+        final var key = random.nextInt(5_000);
+        if (random.nextInt(10) < 6) {
+          tree.put(key, null);
+        } else {
+          tree.remove(key);
+        }
+      }
+
+      for (var level = tree.root; level != null; level = level.isInternal ? level.getChildAt(0) : null) {
+        for (var node = level; node != null; node = node.right) {
+          assertEquals(node.isInternal ? Math.max(2, minSize) : minSize, node.getMinSize());
+          if (node != tree.root) { // removes merged every node that fell below minSize
+            assertTrue(node.size >= node.getMinSize(), "Node of " + node.size + " below minSize " + minSize);
+          }
+        }
+      }
+    }
+  }
+
+  @Test
+  void testVectorSearchMatchesBinarySearch() {
+    final var vectors = ModuleLayer.boot().findModule("jdk.incubator.vector").isPresent(); // only under vectorTest
+    final var rnd = new Random(256);
+    for (int end = 0; end <= 300; ++end) {
+      final var keys = new long[end + 1];
+      for (int i = 0; i < end; ++i) {
+        keys[i] = (rnd.nextInt(4 * end + 1) - 2 * end) * 1_000_000_007L;
+      }
+      Arrays.sort(keys, 0, end);
+      final var distinct = Arrays.stream(keys, 0, end).distinct().toArray();
+      System.arraycopy(distinct, 0, keys, 0, distinct.length);
+      final var size = distinct.length;
+      for (int probe = 0; probe < 50; ++probe) {
+        final long key = probe % 2 == 0 && size > 0 ? keys[rnd.nextInt(size)] : (rnd.nextInt(4 * end + 1) - 2 * end) * 1_000_000_007L;
+        for (var inclusive : new boolean[]{false, true}) {
+          final var expected = KeySearch.binarySearch(keys, size, key, inclusive);
+          if (vectors) {
+            assertEquals(expected, VectorKeySearch.search(keys, size, key, inclusive), "Vector search of " + size
+                + " keys for " + key + (inclusive ? " at or below" : " below"));
+          }
+          assertEquals(expected, KeySearch.search(keys, size, key, inclusive));
+        }
+      }
+    }
+  }
+
+  @TestFactory
+  Stream<DynamicTest> fuzzTest() {
+    return Stream.generate(() -> ThreadLocalRandom.current().nextLong(-100000, 100000))
+        .limit(50)
+        .map(seed -> {
+          final var batchSize = ThreadLocalRandom.current().nextInt(100, 5000);
+          final var nodeSize = ThreadLocalRandom.current().nextInt(4, 100);
+          return DynamicTest.dynamicTest(
+              "Test random puts and removes"
+                  + ", seed " + seed
+                  + ", batchSize " + batchSize
+                  + ", nodeSize " + nodeSize,
+              () -> testRandomPutRemove(seed, batchSize, nodeSize)
+          );
+        });
+  }
+}
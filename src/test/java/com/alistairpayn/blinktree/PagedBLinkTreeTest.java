@@ -0,0 +1,306 @@
+package com.alistairpayn.blinktree;
+
+import org.junit.jupiter.api.DynamicTest;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestFactory;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PagedBLinkTreeTest {
+  @TempDir
+  Path directory;
+
+  static void verifyContainsEntries(PagedBLinkTree tree, TreeMap<Long, Long> entries) {
+    assertEquals(entries.size(), tree.size(), "Incorrect PagedBLinkTree size");
+    entries.forEach((key, value) -> assertEquals(value, tree.get(key, -1), "Key missing from PagedBLinkTree " + key));
+
+    final var iterator = entries.entrySet().iterator();
+    tree.forEach((key, value) -> {
+      assertTrue(iterator.hasNext(), "PagedBLinkTree leaf chain has extra key " + key);
+      final var entry = iterator.next();
+      assertEquals(entry.getKey(), key);
+      assertEquals(entry.getValue(), value);
+    });
+    assertFalse(iterator.hasNext(), "PagedBLinkTree leaf chain ended early");
+  }
+
+  static void testRandomPutRemove(PagedBLinkTree tree, long seed, int batchSize) {
+    final var rnd = new Random(seed);
+    final var entries = new TreeMap<Long, Long>();
+
+    for (int i = 0; i < batchSize; ++i) {
+      final long key = rnd.nextInt(batchSize / 2) * 1_000_000_007L;
+      if (rnd.nextInt(10) < 6) {
+        final long value = rnd.nextLong();
+        tree.put(key, value);
+        entries.put(key, value);
+      } else {
+        assertEquals(entries.remove(key) != null, tree.remove(key), "Incorrect remove result for key " + key);
+        assertFalse(tree.containsKey(key), "Key not deleted from PagedBLinkTree " + key);
+      }
+    }
+    verifyContainsEntries(tree, entries);
+
+    for (var key : entries.keySet().toArray(Long[]::new)) {
+      assertTrue(tree.remove(key), "Could not find key to remove " + key);
+      entries.remove(key);
+    }
+    verifyContainsEntries(tree, entries);
+    assertTrue(tree.isEmpty());
+  }
+
+  @Test
+  void testScanMatchesSubMap() {
+    final var random = new Random(256);
+    final var tree = new PagedBLinkTree(new OffHeapPageStore(128));
+    final var entries = new TreeMap<Long, Long>();
+    for (int i = 0; i < 5000; ++i) {
+      final long key = random.nextInt(20000) - 10000;
+      tree.put(key, i);
+      entries.put(key, (long) i);
+    }
+
+    for (int i = 0; i < 200; ++i) {
+      final long from = random.nextInt(21000) - 10500;
+      final long to = from + random.nextInt(2000);
+      final var fromInclusive = random.nextBoolean();
+      final var toInclusive = random.nextBoolean();
+      final var visited = new ArrayList<Long>();
+      tree.scan(from, fromInclusive, to, toInclusive, (key, value) -> {
+        assertEquals(entries.get(key), value);
+        visited.add(key);
+      });
+      assertEquals(new ArrayList<>(entries.subMap(from, fromInclusive, to, toInclusive).keySet()), visited);
+    }
+  }
+
+  @Test
+  void testFreedPagesAreReused() {
+    final var store = new OffHeapPageStore(256);
+    final var tree = new PagedBLinkTree(store);
+    for (int round = 0; round < 5; ++round) {
+      for (long key = 0; key < 20000; ++key) {
+        tree.put(key, key);
+      }
+      for (long key = 0; key < 20000; ++key) {
+        assertTrue(tree.remove(key));
+      }
+    }
+    final var pagesForOneRound = store.pageCount;
+    for (long key = 0; key < 20000; ++key) {
+      tree.put(key, key);
+    }
+    assertEquals(pagesForOneRound, store.pageCount, "Pages freed by merges were not reused");
+  }
+
+  @Test
+  void testMappedTreeSurvivesReopen() {
+    final var file = directory.resolve("tree.pages");
+    final var random = new Random(256);
+    final var entries = new TreeMap<Long, Long>();
+    try (var tree = new PagedBLinkTree(new MappedPageStore(file, 4096))) {
+      for (int i = 0; i < 100_000; ++i) {
+        final long key = random.nextLong();
+        tree.put(key, i);
+        entries.put(key, (long) i);
+      }
+    }
+
+    try (var tree = new PagedBLinkTree(new MappedPageStore(file, 4096))) {
+      verifyContainsEntries(tree, entries);
+      for (var key : entries.keySet().toArray(Long[]::new)) {
+        if (random.nextBoolean()) {
+          assertTrue(tree.remove(key));
+          entries.remove(key);
+        }
+      }
+    }
+
+    try (var tree = new PagedBLinkTree(new MappedPageStore(file, 4096))) {
+      verifyContainsEntries(tree, entries);
+    }
+  }
+
+  @Test
+  void testMappedStoreReusesFreedPages() {
+    final var store = new MappedPageStore(directory.resolve("reuse.pages"), 512);
+    final var tree = new PagedBLinkTree(store);
+    for (long key = 0; key < 20000; ++key) {
+      tree.put(key, key);
+    }
+    for (long key = 0; key < 20000; ++key) {
+      assertTrue(tree.remove(key));
+    }
+    final var pageCount = store.pageCount();
+    for (long key = 0; key < 20000; ++key) {
+      tree.put(key, key);
+    }
+    assertEquals(pageCount, store.pageCount(), "Pages freed by merges were not reused");
+    tree.close();
+  }
+
+  @Test
+  void testMappedStoreRejectsMismatchedPageSize() {
+    final var file = directory.resolve("mismatch.pages");
+    new MappedPageStore(file, 4096).close();
+    assertThrows(RuntimeException.class, () -> new MappedPageStore(file, 8192));
+  }
+
+  @Test
+  void testBufferPoolSurvivesReopen() {
+    final var file = directory.resolve("pool.pages");
+    final var random = new Random(512);
+    final var entries = new TreeMap<Long, Long>();
+    try (var tree = new PagedBLinkTree(new BufferPoolPageStore(file, 512, 16))) {
+      for (int i = 0; i < 50_000; ++i) {
+        final long key = random.nextInt(100_000);
+        if (random.nextInt(4) == 0) {
+          assertEquals(entries.remove(key) != null, tree.remove(key));
+        } else {
+          tree.put(key, i);
+          entries.put(key, (long) i);
+        }
+      }
+      assertEquals(0, ((BufferPoolPageStore) tree.store).getPinnedFrames(), "Tree left pages pinned");
+    }
+
+    try (var tree = new PagedBLinkTree(new BufferPoolPageStore(file, 512, 16))) {
+      verifyContainsEntries(tree, entries);
+    }
+    try (var tree = new PagedBLinkTree(new MappedPageStore(file, 512))) {
+      verifyContainsEntries(tree, entries);
+    }
+  }
+
+  @Test
+  void testDeepTreeThroughSmallestBufferPool() {
+    final var store = new BufferPoolPageStore(directory.resolve("deep.pages"), 96, 8); // nodes of 4 entries
+    final var random = new Random(256);
+    final var entries = new TreeMap<Long, Long>();
+    try (var tree = new PagedBLinkTree(store)) {
+      for (int i = 0; i < 20_000; ++i) {
+        final long key = random.nextInt(10_000);
+        if (random.nextInt(4) == 0) {
+          assertEquals(entries.remove(key) != null, tree.remove(key));
+        } else {
+          tree.put(key, i);
+          entries.put(key, (long) i);
+        }
+      }
+      var height = 1;
+      final var node = tree.pin(store.getMetadata(PageStore.ROOT));
+      while (node.isInternal()) {
+        final var child = node.getValueAt(0);
+        store.unpin(node);
+        store.pin(child, node);
+        ++height;
+      }
+      store.unpin(node);
+      assertTrue(height >= 6, "Tree of height " + height + " is not deeper than the pool is wide");
+      verifyContainsEntries(tree, entries);
+      assertEquals(0, store.getPinnedFrames(), "Tree left pages pinned");
+    }
+  }
+
+  @Test
+  void testBufferPoolRejectsPoolsPastOneBuffer() {
+    assertThrows(RuntimeException.class,
+        () -> new BufferPoolPageStore(directory.resolve("huge.pages"), 1 << 16, 1 << 15));
+  }
+
+  @Test
+  void testBufferPoolKeepsInnerNodesThroughScans() {
+    final var store = new BufferPoolPageStore(directory.resolve("scan.pages"), 4096, 64);
+    final var tree = new PagedBLinkTree(store);
+    for (long key = 0; key < 300_000; ++key) {
+      tree.put(key, key);
+    }
+
+    final var random = new Random(256);
+    for (int i = 0; i < 10_000; ++i) { // a hot range whose leaves and inner nodes are pinned again and again
+      tree.get(random.nextInt(2000), -1);
+    }
+    final var count = new long[1];
+    tree.forEach((key, value) -> ++count[0]);
+    assertEquals(300_000, count[0]);
+    assertTrue(store.getEvictions() > 1000, "Scan did not cycle the pool");
+
+    final var misses = store.getMisses();
+    for (int i = 0; i < 10_000; ++i) {
+      tree.get(random.nextInt(2000), -1);
+    }
+    assertEquals(misses, store.getMisses(), "Scan over the leaves evicted the hot pages");
+    assertEquals(0, store.getPinnedFrames());
+    tree.close();
+  }
+
+  @TestFactory
+  Stream<DynamicTest> bufferPoolFuzzTest() {
+    return Stream.generate(() -> ThreadLocalRandom.current().nextLong(-100000, 100000))
+        .limit(10)
+        .map(seed -> {
+          final var batchSize = ThreadLocalRandom.current().nextInt(100, 5000);
+          final var pageSize = ThreadLocalRandom.current().nextInt(96, 1024);
+          final var frameCount = ThreadLocalRandom.current().nextInt(8, 64);
+          return DynamicTest.dynamicTest(
+              "Test random puts and removes through a buffer pool"
+                  + ", seed " + seed
+                  + ", batchSize " + batchSize
+                  + ", pageSize " + pageSize
+                  + ", frameCount " + frameCount,
+              () -> {
+                final var file = directory.resolve(seed + ".pool");
+                try (var tree = new PagedBLinkTree(new BufferPoolPageStore(file, pageSize, frameCount))) {
+                  testRandomPutRemove(tree, seed, batchSize);
+                }
+              }
+          );
+        });
+  }
+
+  @TestFactory
+  Stream<DynamicTest> mappedFuzzTest() {
+    return Stream.generate(() -> ThreadLocalRandom.current().nextLong(-100000, 100000))
+        .limit(10)
+        .map(seed -> {
+          final var batchSize = ThreadLocalRandom.current().nextInt(100, 5000);
+          final var pageSize = ThreadLocalRandom.current().nextInt(96, 1024);
+          return DynamicTest.dynamicTest(
+              "Test random puts and removes in a page file"
+                  + ", seed " + seed
+                  + ", batchSize " + batchSize
+                  + ", pageSize " + pageSize,
+              () -> {
+                try (var tree = new PagedBLinkTree(new MappedPageStore(directory.resolve(seed + ".pages"), pageSize))) {
+                  testRandomPutRemove(tree, seed, batchSize);
+                }
+              }
+          );
+        });
+  }
+
+  @TestFactory
+  Stream<DynamicTest> fuzzTest() {
+    return Stream.generate(() -> ThreadLocalRandom.current().nextLong(-100000, 100000))
+        .limit(30)
+        .map(seed -> {
+          final var batchSize = ThreadLocalRandom.current().nextInt(100, 5000);
+          final var pageSize = ThreadLocalRandom.current().nextInt(88, 1024);
+          return DynamicTest.dynamicTest(
+              "Test random puts and removes off heap"
+                  + ", seed " + seed
+                  + ", batchSize " + batchSize
+                  + ", pageSize " + pageSize,
+              () -> testRandomPutRemove(new PagedBLinkTree(new OffHeapPageStore(pageSize)), seed, batchSize)
+          );
+        });
+  }
+}
@@ -0,0 +1,72 @@
+package com.alistairpayn.blinktree;
+
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.LongVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+// a binary search narrows the keys to eight vectors, which are then compared a vector at a time until one is not
+// wholly below the probe, so a node costs up to eight vector compares and a data-dependent exit branch
+final class VectorKeySearch {
+  static final VectorSpecies<Integer> INTS = IntVector.SPECIES_PREFERRED;
+  static final VectorSpecies<Long> LONGS = LongVector.SPECIES_PREFERRED;
+  static final int INT_WINDOW = 8 * INTS.length();
+  static final int LONG_WINDOW = 8 * LONGS.length();
+
+  private VectorKeySearch() {
+  }
+
+  static int search(final int[] keys, final int end, final int key, final boolean inclusive) {
+    var low = 0;
+    var high = end;
+    while (high - low > INT_WINDOW) {
+      final var mid = (low + high) >>> 1;
+      if (keys[mid] < key || (inclusive && keys[mid] == key)) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+
+    final var operator = inclusive ? VectorOperators.LE : VectorOperators.LT;
+    final var bound = low + INTS.loopBound(high - low);
+    var index = low;
+    for (; index < bound; index += INTS.length()) {
+      final var below = IntVector.fromArray(INTS, keys, index).compare(operator, key);
+      if (!below.allTrue()) {
+        return index + below.trueCount();
+      }
+    }
+    while (index < high && (keys[index] < key || (inclusive && keys[index] == key))) { // the keys past the last vector
+      ++index;
+    }
+    return index;
+  }
+
+  static int search(final long[] keys, final int end, final long key, final boolean inclusive) {
+    var low = 0;
+    var high = end;
+    while (high - low > LONG_WINDOW) {
+      final var mid = (low + high) >>> 1;
+      if (keys[mid] < key || (inclusive && keys[mid] == key)) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+
+    final var operator = inclusive ? VectorOperators.LE : VectorOperators.LT;
+    final var bound = low + LONGS.loopBound(high - low);
+    var index = low;
+    for (; index < bound; index += LONGS.length()) {
+      final var below = LongVector.fromArray(LONGS, keys, index).compare(operator, key);
+      if (!below.allTrue()) {
+        return index + below.trueCount();
+      }
+    }
+    while (index < high && (keys[index] < key || (inclusive && keys[index] == key))) {
+      ++index;
+    }
+    return index;
+  }
+}